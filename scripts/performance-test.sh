@@ -40,9 +40,7 @@ echo "Concurrent requests completed. Processing steps..."
 
 # 处理步骤测试
 for step in {1..50}; do
-    for elevator_id in {1..5}; do
-        curl -X POST "http://localhost:8080/api/elevators/$elevator_id/step" > /dev/null 2>&1
-    done
+    curl -X POST "http://localhost:8080/api/elevators/step" > /dev/null 2>&1
     echo "Completed step $step"
 done
 
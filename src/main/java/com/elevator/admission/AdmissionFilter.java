@@ -0,0 +1,114 @@
+package com.elevator.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+// 准入控制：呼叫写入和电梯查询各有一份并发额度，额度用完时立即返回 503 和 Retry-After，
+// 不让请求在数据库前排队拖垮延迟。异步请求（长轮询、SSE）只在初始分派期间占用额度
+@Slf4j
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    static final String HALL_CALL_BUDGET = "hall-call";
+    static final String READ_BUDGET = "read";
+
+    private static final String[] HALL_CALL_PATHS = {"/api/elevators/*/requests", "/api/elevators/requests/**"};
+    private static final String EVENTS_PATH = "/api/elevators/events";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Budget hallCalls;
+    private final Budget reads;
+    private final String retryAfter;
+
+    public AdmissionFilter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getRetryAfterSeconds() < 0) {
+            throw new IllegalStateException("elevator.admission.retry-after-seconds must not be negative");
+        }
+        this.hallCalls = Budget.create(HALL_CALL_BUDGET, properties.getHallCallLimit(), meterRegistry);
+        this.reads = Budget.create(READ_BUDGET, properties.getReadLimit(), meterRegistry);
+        this.retryAfter = String.valueOf(properties.getRetryAfterSeconds());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Budget budget = classify(request);
+        if (budget == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!budget.permits.tryAcquire()) {
+            budget.rejected.increment();
+            log.debug("Rejected {} {}: {} budget exhausted", request.getMethod(), request.getRequestURI(), budget.name);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many concurrent " + budget.name + " requests");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            budget.permits.release();
+        }
+    }
+
+    // 模拟时钟、步进等管理接口不限流
+    private Budget classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if ("POST".equals(method)) {
+            for (String pattern : HALL_CALL_PATHS) {
+                if (pathMatcher.match(pattern, path)) {
+                    return hallCalls;
+                }
+            }
+            return null;
+        }
+        if (("GET".equals(method) || "HEAD".equals(method))
+                && pathMatcher.match("/api/elevators/**", path) && !path.startsWith(EVENTS_PATH)) {
+            return reads;
+        }
+        return null;
+    }
+
+    private static final class Budget {
+        private final String name;
+        private final Semaphore permits;
+        private final Counter rejected;
+
+        private Budget(String name, Semaphore permits, Counter rejected) {
+            this.name = name;
+            this.permits = permits;
+            this.rejected = rejected;
+        }
+
+        static Budget create(String name, int limit, MeterRegistry meterRegistry) {
+            if (limit <= 0) {
+                return null;
+            }
+            Semaphore permits = new Semaphore(limit);
+            Counter rejected = Counter.builder("elevator.admission.rejected")
+                    .description("Requests rejected because their concurrency budget was exhausted")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+            Gauge.builder("elevator.admission.in-flight", permits, semaphore -> limit - semaphore.availablePermits())
+                    .description("Requests currently holding a concurrency permit")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+            return new Budget(name, permits, rejected);
+        }
+    }
+}
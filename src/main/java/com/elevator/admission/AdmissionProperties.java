@@ -0,0 +1,18 @@
+package com.elevator.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.admission")
+public class AdmissionProperties {
+
+    // 同时处理中的呼叫写入请求上限（单个、批量、异步提交），<=0 表示不限制
+    private int hallCallLimit = 64;
+
+    // 同时处理中的电梯查询请求上限，<=0 表示不限制
+    private int readLimit = 256;
+
+    // 拒绝时 Retry-After 建议的重试间隔，单位秒
+    private int retryAfterSeconds = 1;
+}
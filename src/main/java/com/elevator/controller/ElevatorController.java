@@ -2,24 +2,61 @@ package com.elevator.controller;
 
 import com.elevator.entity.Elevator;
 import com.elevator.entity.Request;
+import com.elevator.idempotency.IdempotencyCache;
+import com.elevator.model.Assignment;
+import com.elevator.model.HallCall;
+import com.elevator.model.StepReport;
+import com.elevator.service.BatchDispatcher;
 import com.elevator.service.ElevatorService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/elevators")
 @RequiredArgsConstructor
+@Slf4j
 public class ElevatorController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     
     private final ElevatorService elevatorService;
+
+    private final BatchDispatcher batchDispatcher;
+
+    private final ObjectMapper objectMapper;
+
+    private final IdempotencyCache<Request> requestIdempotencyCache;
+
+    // 批量导入时每批调度的请求数，每批一个事务
+    @Value("${elevator.ingest.chunk-size:500}")
+    private int ingestChunkSize;
     
     @PostMapping
-    public ResponseEntity<Elevator> createElevator(@RequestParam(defaultValue = "10") int maxCapacity) {
-        Elevator elevator = elevatorService.createElevator(maxCapacity);
+    public ResponseEntity<Elevator> createElevator(@RequestParam(defaultValue = "10") int maxCapacity,
+                                                   @RequestParam(required = false) String bank) {
+        Elevator elevator = elevatorService.createElevator(maxCapacity, bank);
         return ResponseEntity.ok(elevator);
     }
     
@@ -27,25 +64,124 @@ public class ElevatorController {
     public ResponseEntity<Request> createRequest(
             @PathVariable Long elevatorId,
             @RequestParam int originFloor,
-            @RequestParam int destinationFloor) {
-        Request request = elevatorService.createRequest(originFloor, destinationFloor);
+            @RequestParam int destinationFloor,
+            @RequestParam(required = false) String bank,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        // 网关超时重试时带相同的幂等键，直接返回第一次分配的请求
+        HallCall call = new HallCall(originFloor, destinationFloor, bank);
+        Request request = idempotencyKey == null
+                ? submitRequest(call)
+                : requestIdempotencyCache.execute(idempotencyKey, call, () -> submitRequest(call));
         return ResponseEntity.ok(request);
     }
+
+    // 开启批量调度窗口时与同一时间窗内的其他呼叫一起联合指派
+    private Request submitRequest(HallCall call) {
+        return batchDispatcher.isEnabled()
+                ? batchDispatcher.submit(call)
+                : elevatorService.createRequest(call.getOriginFloor(), call.getDestinationFloor(), call.getBank());
+    }
+    
+    // 批量导入：请求体为 NDJSON 或 JSON 数组，边解析边分批调度，每批的分配结果立即以 NDJSON 写回。
+    // 响应类型在写出时设置，不按 Accept 协商，发送 JSON 数组并带 Accept: application/json 的客户端同样可用
+    @PostMapping(value = "/requests/bulk", consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    public void createRequests(InputStream body, HttpServletResponse response) throws IOException {
+        try (MappingIterator<HallCall> calls = objectMapper.readerFor(HallCall.class).readValues(body)) {
+            // 第一批出错时还未写出任何内容，交给异常处理器返回 400
+            List<HallCall> chunk = nextChunk(calls);
+            List<Request> created = chunk.isEmpty()
+                    ? Collections.<Request>emptyList()
+                    : elevatorService.createRequests(chunk);
+
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(NDJSON);
+            OutputStream out = new BufferedOutputStream(response.getOutputStream());
+            int total = 0;
+            while (!created.isEmpty()) {
+                for (Request request : created) {
+                    writeLine(out, new Assignment(request.getId(), request.getElevator().getId(),
+                            request.getOriginFloor(), request.getDestinationFloor(), request.getDirection()));
+                }
+                out.flush();
+                total += created.size();
+                // 之前的批次已经提交，后续出错只能在流末尾写出错误行
+                try {
+                    chunk = nextChunk(calls);
+                    created = chunk.isEmpty()
+                            ? Collections.<Request>emptyList()
+                            : elevatorService.createRequests(chunk);
+                } catch (RuntimeException e) {
+                    log.warn("Bulk ingest stopped after {} requests: {}", total, e.getMessage());
+                    writeLine(out, Collections.singletonMap("error", e.getMessage()));
+                    break;
+                }
+            }
+            out.flush();
+            log.debug("Bulk ingested {} requests", total);
+        }
+    }
+
+    private List<HallCall> nextChunk(MappingIterator<HallCall> calls) {
+        List<HallCall> chunk = new ArrayList<>(ingestChunkSize);
+        try {
+            while (chunk.size() < ingestChunkSize && calls.hasNextValue()) {
+                chunk.add(calls.nextValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed hall call: " + e.getMessage(), e);
+        }
+        return chunk;
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
     
+    // 不带参数时推进一步，各种用法都返回同样结构的推进结果
     @PostMapping("/{elevatorId}/step")
-    public ResponseEntity<Void> processNextStep(@PathVariable Long elevatorId) {
-        elevatorService.processNextStep(elevatorId);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<StepReport> processNextStep(
+            @PathVariable Long elevatorId,
+            @RequestParam(defaultValue = "1") int ticks,
+            @RequestParam(defaultValue = "false") boolean untilIdle) {
+        if (untilIdle) {
+            return ResponseEntity.ok(elevatorService.advanceUntilIdle(elevatorId));
+        }
+        return ResponseEntity.ok(elevatorService.advance(elevatorId, ticks));
+    }
+    
+    @PostMapping("/step")
+    public ResponseEntity<List<StepReport>> processFleetStep(@RequestParam(defaultValue = "1") int ticks) {
+        return ResponseEntity.ok(elevatorService.advanceAll(ticks));
     }
     
+    // ETag 为全楼版本号，未变化时返回 304，不查询也不序列化；since 只返回该版本之后变化过的电梯
     @GetMapping
-    public ResponseEntity<List<Elevator>> getAllElevators() {
-        return ResponseEntity.ok(elevatorService.getAllElevators());
+    public ResponseEntity<List<Elevator>> getAllElevators(@RequestParam(required = false) Long since,
+                                                          WebRequest webRequest) {
+        String etag = etag(elevatorService.getFleetVersion());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        List<Elevator> elevators = since == null
+                ? elevatorService.getAllElevators()
+                : elevatorService.getElevatorsChangedSince(since);
+        return ResponseEntity.ok().eTag(etag).body(elevators);
     }
     
+    // ETag 只取一次状态表中的已提交版本，304 和 200 用同一个值；期间提交的推进最多让响应体比 ETag 新，下次请求照常返回 200
     @GetMapping("/{elevatorId}")
-    public ResponseEntity<Elevator> getElevator(@PathVariable Long elevatorId) {
-        return ResponseEntity.ok(elevatorService.getElevator(elevatorId));
+    public ResponseEntity<Elevator> getElevator(@PathVariable Long elevatorId, WebRequest webRequest) {
+        Optional<String> etag = elevatorService.findElevatorVersion(elevatorId).map(ElevatorController::etag);
+        if (etag.isPresent() && webRequest.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        Elevator elevator = elevatorService.getElevator(elevatorId);
+        return etag.map(tag -> ResponseEntity.ok().eTag(tag)).orElseGet(ResponseEntity::ok).body(elevator);
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
     }
     
     @GetMapping("/{elevatorId}/requests")
@@ -53,6 +189,27 @@ public class ElevatorController {
         return ResponseEntity.ok(elevatorService.getPendingRequests(elevatorId));
     }
     
+    @GetMapping("/{elevatorId}/requests/count")
+    public ResponseEntity<Integer> getPendingRequestCount(@PathVariable Long elevatorId) {
+        return ResponseEntity.ok(elevatorService.getPendingRequestCount(elevatorId));
+    }
+    
+    @GetMapping("/pending-counts")
+    public ResponseEntity<Map<Long, Integer>> getPendingRequestCounts() {
+        return ResponseEntity.ok(elevatorService.getPendingRequestCounts());
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+    
+    // 重试后仍与其他副本的修改冲突，客户端稍后重试即可
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
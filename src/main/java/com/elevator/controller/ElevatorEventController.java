@@ -0,0 +1,40 @@
+package com.elevator.controller;
+
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.events.ElevatorEventStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/elevators/events")
+@RequiredArgsConstructor
+public class ElevatorEventController {
+
+    private final ElevatorEventStream eventStream;
+    private final ElevatorBanks banks;
+
+    // 一个长连接代替轮询 GET /api/elevators：snapshot 事件为当前状态，之后的 delta 事件只带变化的字段；
+    // 指定 bank 时只推送该电梯组的电梯
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestParam(required = false) List<Long> elevatorIds,
+            @RequestParam(required = false) String bank,
+            @RequestParam(defaultValue = "true") boolean snapshot) {
+        return eventStream.subscribe(
+                elevatorIds == null ? Collections.emptySet() : new HashSet<>(elevatorIds),
+                bank == null ? null : banks.resolve(bank), snapshot);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+}
@@ -0,0 +1,81 @@
+package com.elevator.controller;
+
+import com.elevator.idempotency.IdempotencyCache;
+import com.elevator.model.HallCall;
+import com.elevator.model.RequestTicket;
+import com.elevator.submission.RequestSubmissionQueue;
+import com.elevator.submission.SubmissionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/elevators/requests")
+@RequiredArgsConstructor
+public class RequestSubmissionController {
+
+    private final RequestSubmissionQueue submissionQueue;
+    private final SubmissionProperties submissionProperties;
+    private final IdempotencyCache<RequestTicket> ticketIdempotencyCache;
+
+    // 只入队不调度，立即返回 202 和凭据，通过 Location 查询分配结果
+    @PostMapping("/async")
+    public ResponseEntity<RequestTicket> submitRequest(
+            @RequestParam int originFloor,
+            @RequestParam int destinationFloor,
+            @RequestParam(required = false) String bank,
+            @RequestHeader(value = ElevatorController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        // 带相同幂等键的重试返回原来的凭据，不会重复入队
+        HallCall call = new HallCall(originFloor, destinationFloor, bank);
+        RequestTicket ticket = idempotencyKey == null
+                ? submissionQueue.submit(call)
+                : ticketIdempotencyCache.execute(idempotencyKey, call, () -> submissionQueue.submit(call));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/elevators/requests/tickets/" + ticket.getTicketId()))
+                .body(ticket);
+    }
+
+    // waitMillis > 0 时长轮询：凭据完成或等待超时才返回，等待期间不占用 Servlet 线程
+    @GetMapping("/tickets/{ticketId}")
+    public DeferredResult<ResponseEntity<RequestTicket>> getTicket(
+            @PathVariable String ticketId,
+            @RequestParam(defaultValue = "0") long waitMillis) {
+        long wait = Math.min(Math.max(waitMillis, 0), submissionProperties.getMaxWaitMillis());
+        DeferredResult<ResponseEntity<RequestTicket>> result =
+                new DeferredResult<>(wait > 0 ? wait : null, () -> current(ticketId));
+
+        Optional<CompletableFuture<RequestTicket>> completion = submissionQueue.completion(ticketId);
+        if (!completion.isPresent() || wait == 0 || completion.get().isDone()) {
+            result.setResult(current(ticketId));
+        } else {
+            completion.get().thenAccept(ticket -> result.setResult(ResponseEntity.ok(ticket)));
+        }
+        return result;
+    }
+
+    private ResponseEntity<RequestTicket> current(String ticketId) {
+        return submissionQueue.find(ticketId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
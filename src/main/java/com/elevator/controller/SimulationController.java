@@ -0,0 +1,30 @@
+package com.elevator.controller;
+
+import com.elevator.simulation.SimulationClock;
+import com.elevator.simulation.SimulationStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/simulation")
+@RequiredArgsConstructor
+public class SimulationController {
+
+    private final SimulationClock simulationClock;
+
+    @GetMapping
+    public ResponseEntity<SimulationStatus> getStatus() {
+        return ResponseEntity.ok(simulationClock.status());
+    }
+
+    @PostMapping("/pause")
+    public ResponseEntity<SimulationStatus> pause() {
+        return ResponseEntity.ok(simulationClock.pause());
+    }
+
+    @PostMapping("/resume")
+    public ResponseEntity<SimulationStatus> resume() {
+        return ResponseEntity.ok(simulationClock.resume());
+    }
+}
@@ -0,0 +1,84 @@
+package com.elevator.dispatch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// 楼宇描述：楼层范围以及所用的调度策略，由 elevator.building.* 配置；高低区等分区用电梯组表示
+@Data
+@ConfigurationProperties(prefix = "elevator.building")
+public class BuildingTopology {
+
+    private int floors = 10;
+    private int lowestFloor = 1;
+    private String dispatchStrategy = NearestCarStrategy.NAME;
+    // 电梯组，如园区中的各楼栋或同一楼栋的高低区；每组有自己的楼层范围和调度策略，未配置的项沿用上面的楼宇配置
+    private List<Bank> banks = new ArrayList<>();
+
+    // ETA策略使用的运行参数，启动时据此预计算运行时间表
+    private double floorHeightMeters = 3.5;
+    private double maxSpeedMetersPerSecond = 2.5;
+    private double accelerationMetersPerSecondSquared = 1.0;
+    private int doorDwellMillis = 5000;
+    private int turnaroundMillis = 2000;
+
+    public int getHighestFloor() {
+        return lowestFloor + floors - 1;
+    }
+
+    public boolean contains(int floor) {
+        return floor >= lowestFloor && floor <= getHighestFloor();
+    }
+
+    public void requireFloor(int floor) {
+        if (!contains(floor)) {
+            throw new IllegalArgumentException(
+                    "Floor " + floor + " is outside building range " + lowestFloor + "-" + getHighestFloor());
+        }
+    }
+
+    // 该电梯组的楼宇描述
+    public BuildingTopology forBank(Bank bank) {
+        BuildingTopology topology = new BuildingTopology();
+        topology.setFloors(bank.getFloors() == null ? floors : bank.getFloors());
+        topology.setLowestFloor(bank.getLowestFloor() == null ? lowestFloor : bank.getLowestFloor());
+        topology.setDispatchStrategy(bank.getDispatchStrategy() == null ? dispatchStrategy : bank.getDispatchStrategy());
+        topology.setFloorHeightMeters(floorHeightMeters);
+        topology.setMaxSpeedMetersPerSecond(maxSpeedMetersPerSecond);
+        topology.setAccelerationMetersPerSecondSquared(accelerationMetersPerSecondSquared);
+        topology.setDoorDwellMillis(doorDwellMillis);
+        topology.setTurnaroundMillis(turnaroundMillis);
+        return topology;
+    }
+
+    public void validate() {
+        if (floors < 2) {
+            throw new IllegalStateException("A building needs at least 2 floors, got " + floors);
+        }
+        if (floorHeightMeters <= 0 || maxSpeedMetersPerSecond <= 0 || accelerationMetersPerSecondSquared <= 0) {
+            throw new IllegalStateException("Floor height, max speed and acceleration must be positive");
+        }
+        Set<String> names = new HashSet<>();
+        for (Bank bank : banks) {
+            if (bank.getName() == null || bank.getName().trim().isEmpty()) {
+                throw new IllegalStateException("Every elevator bank needs a name");
+            }
+            if (!names.add(bank.getName())) {
+                throw new IllegalStateException("Duplicate elevator bank: " + bank.getName());
+            }
+            forBank(bank).validate();
+        }
+    }
+
+    @Data
+    public static class Bank {
+        private String name;
+        private Integer floors;
+        private Integer lowestFloor;
+        private String dispatchStrategy;
+    }
+}
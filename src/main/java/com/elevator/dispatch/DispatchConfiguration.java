@@ -0,0 +1,33 @@
+package com.elevator.dispatch;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BuildingTopology.class)
+public class DispatchConfiguration {
+
+    @Bean
+    public DispatchStrategy dispatchStrategy(BuildingTopology building) {
+        building.validate();
+        return createStrategy(building);
+    }
+
+    @Bean
+    public ElevatorBanks elevatorBanks(BuildingTopology building, DispatchStrategy dispatchStrategy) {
+        return new ElevatorBanks(building, dispatchStrategy);
+    }
+
+    // 按楼宇配置的名称创建调度策略
+    public static DispatchStrategy createStrategy(BuildingTopology building) {
+        switch (building.getDispatchStrategy()) {
+            case NearestCarStrategy.NAME:
+                return new NearestCarStrategy(building);
+            case EtaStrategy.NAME:
+                return new EtaStrategy(new TravelTimeTable(building));
+            default:
+                throw new IllegalStateException("Unknown dispatch strategy: " + building.getDispatchStrategy());
+        }
+    }
+}
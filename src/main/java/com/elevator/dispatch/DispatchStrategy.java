@@ -0,0 +1,18 @@
+package com.elevator.dispatch;
+
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+
+// 调度成本模型，成本越低越优先；满载电梯返回 Integer.MAX_VALUE
+public interface DispatchStrategy {
+
+    String getName();
+
+    int cost(ElevatorSnapshot elevator, int requestFloor, Direction requestDirection, int pendingRequests);
+
+    // 电梯多停一站的成本，与 cost 同单位；联合指派按它给同一电梯的每个额外呼叫加价
+    int stopCost();
+
+    // 与请求楼层相距 floorDistance 层的电梯可能取得的最小成本，调度据此剪枝，必须随距离单调不减
+    int lowerBound(int floorDistance);
+}
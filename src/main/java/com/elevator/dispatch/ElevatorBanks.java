@@ -0,0 +1,56 @@
+package com.elevator.dispatch;
+
+import com.elevator.entity.Elevator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// 各电梯组的楼宇描述和调度策略：每组一个独立的策略实例（ETA 策略各自预计算运行时间表），组间不共享调度状态。
+// 默认组使用楼宇配置及全局的调度策略
+public class ElevatorBanks {
+
+    private final Map<String, Bank> banks = new LinkedHashMap<>();
+
+    public ElevatorBanks(BuildingTopology building, DispatchStrategy defaultStrategy) {
+        banks.put(Elevator.DEFAULT_BANK, new Bank(building, defaultStrategy));
+        for (BuildingTopology.Bank bank : building.getBanks()) {
+            BuildingTopology topology = building.forBank(bank);
+            banks.put(bank.getName(), new Bank(topology, DispatchConfiguration.createStrategy(topology)));
+        }
+    }
+
+    // 规范化电梯组名称：为空时取默认组，未配置的组视为非法参数
+    public String resolve(String bank) {
+        if (bank == null || bank.isEmpty()) {
+            return Elevator.DEFAULT_BANK;
+        }
+        if (!banks.containsKey(bank)) {
+            throw new IllegalArgumentException("Unknown elevator bank: " + bank);
+        }
+        return bank;
+    }
+
+    public BuildingTopology topologyFor(String bank) {
+        return banks.get(resolve(bank)).topology;
+    }
+
+    public DispatchStrategy strategyFor(String bank) {
+        return banks.get(resolve(bank)).strategy;
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(banks.keySet());
+    }
+
+    private static final class Bank {
+        private final BuildingTopology topology;
+        private final DispatchStrategy strategy;
+
+        Bank(BuildingTopology topology, DispatchStrategy strategy) {
+            this.topology = topology;
+            this.strategy = strategy;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.elevator.dispatch;
+
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// 按预计到达时间（毫秒）计价：逐段查表的运行时间 + 途经停靠点的开门时间 + 折返时间
+@RequiredArgsConstructor
+@Slf4j
+public class EtaStrategy implements DispatchStrategy {
+
+    public static final String NAME = "eta";
+
+    private final TravelTimeTable travelTimes;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int cost(ElevatorSnapshot elevator, int requestFloor, Direction requestDirection, int pendingRequests) {
+        if (elevator.isFull()) {
+            return Integer.MAX_VALUE;
+        }
+
+        int currentFloor = elevator.getCurrentFloor();
+        Direction currentDirection = elevator.getDirection();
+        int[] stops = elevator.getStops();
+        int eta;
+
+        if (currentDirection == Direction.IDLE) {
+            // 空闲电梯的待处理请求按一次开门时间计入，起到负载均衡作用
+            eta = travelTimes.route(currentFloor, requestFloor, stops)
+                    + pendingRequests * travelTimes.getDoorDwellMillis();
+        } else if ((currentDirection == Direction.UP && requestDirection == Direction.UP && requestFloor >= currentFloor) ||
+                   (currentDirection == Direction.DOWN && requestDirection == Direction.DOWN && requestFloor <= currentFloor)) {
+            eta = travelTimes.route(currentFloor, requestFloor, stops);
+        } else {
+            // 先运行到当前方向上最远的停靠点（或请求楼层）再折返
+            boolean up = currentDirection == Direction.UP;
+            int turn = up
+                    ? Math.max(farthest(stops, currentFloor, true), requestFloor)
+                    : Math.min(farthest(stops, currentFloor, false), requestFloor);
+            eta = travelTimes.route(currentFloor, turn, stops);
+            if (turn != requestFloor) {
+                if (turn != currentFloor) {
+                    eta += travelTimes.getDoorDwellMillis(); // 折返点本身是一个停靠点
+                }
+                // 当前楼层与折返点之间的停靠点去程已经服务过，返程只在当前楼层另一侧停靠
+                eta += travelTimes.getTurnaroundMillis() + (up
+                        ? travelTimes.route(turn, requestFloor, stops, Integer.MIN_VALUE, currentFloor)
+                        : travelTimes.route(turn, requestFloor, stops, currentFloor, Integer.MAX_VALUE));
+            }
+        }
+
+        log.debug("ETA for elevator {} to floor {}: {} ms", elevator.getId(), requestFloor, eta);
+        return eta;
+    }
+
+    @Override
+    public int stopCost() {
+        return travelTimes.getDoorDwellMillis();
+    }
+
+    @Override
+    public int lowerBound(int floorDistance) {
+        return travelTimes.minRun(floorDistance);
+    }
+
+    private static int farthest(int[] sortedStops, int currentFloor, boolean up) {
+        if (sortedStops.length == 0) {
+            return currentFloor;
+        }
+        return up
+                ? Math.max(currentFloor, sortedStops[sortedStops.length - 1])
+                : Math.min(currentFloor, sortedStops[0]);
+    }
+}
@@ -0,0 +1,123 @@
+package com.elevator.dispatch;
+
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import com.elevator.model.HallCall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// 同一批呼叫的联合指派：每部电梯展开为与呼叫数相同的槽位，第k个槽位的成本为策略报价加上k站的停靠成本，
+// 再用匈牙利算法求总成本最小的指派。策略只对空闲电梯计入待处理数，不单独加价时整批呼叫会全部压到一部同向运行的电梯上。逐个贪心时先到的呼叫会占住后到呼叫更合适的电梯，联合求解可以避免
+public final class JointAssignment {
+
+    // 满载电梯的成本，远大于任何正常成本，只有没有其他选择时才会被选中
+    private static final long INFEASIBLE = 1L << 40;
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    private JointAssignment() {
+    }
+
+    // 返回与 calls 一一对应的电梯；某个呼叫只能分给满载电梯时对应位置为 null，由调用方按常规调度兜底
+    public static List<ElevatorSnapshot> assign(DispatchStrategy strategy, List<ElevatorSnapshot> elevators,
+                                                ToIntFunction<Long> pendingCounts, List<HallCall> calls) {
+        int n = calls.size();
+        if (n == 0) {
+            return Collections.emptyList();
+        }
+        if (elevators.isEmpty()) {
+            return new ArrayList<>(Collections.nCopies(n, (ElevatorSnapshot) null));
+        }
+
+        long[][] cost = new long[n][elevators.size() * n];
+        for (int e = 0; e < elevators.size(); e++) {
+            ElevatorSnapshot elevator = elevators.get(e);
+            int pending = pendingCounts.applyAsInt(elevator.getId());
+            for (int i = 0; i < n; i++) {
+                HallCall call = calls.get(i);
+                Direction direction = call.getDestinationFloor() > call.getOriginFloor() ? Direction.UP : Direction.DOWN;
+                int callCost = strategy.cost(elevator, call.getOriginFloor(), direction, pending);
+                for (int k = 0; k < n; k++) {
+                    cost[i][e * n + k] = callCost == Integer.MAX_VALUE
+                            ? INFEASIBLE : callCost + (long) k * strategy.stopCost();
+                }
+            }
+        }
+
+        int[] columns = solve(cost);
+        List<ElevatorSnapshot> assigned = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            assigned.add(cost[i][columns[i]] >= INFEASIBLE ? null : elevators.get(columns[i] / n));
+        }
+        return assigned;
+    }
+
+    // 行数不超过列数的最小成本指派（带势能的匈牙利算法，O(n²m)），返回每行选中的列
+    static int[] solve(long[][] cost) {
+        int n = cost.length;
+        int m = cost[0].length;
+        if (n > m) {
+            throw new IllegalArgumentException("More rows than columns: " + n + " > " + m);
+        }
+
+        // 下标从1开始，第0列作为增广路径的虚拟起点
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] match = new int[m + 1];
+        int[] way = new int[m + 1];
+        long[] minv = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            match[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, INF);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = match[j0];
+                long delta = INF;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        long reduced = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (reduced < minv[j]) {
+                            minv[j] = reduced;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[match[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (match[j0] != 0);
+            // 沿增广路径翻转匹配
+            do {
+                int j1 = way[j0];
+                match[j0] = match[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] columns = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (match[j] != 0) {
+                columns[match[j] - 1] = j - 1;
+            }
+        }
+        return columns;
+    }
+}
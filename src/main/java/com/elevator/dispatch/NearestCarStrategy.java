@@ -0,0 +1,76 @@
+package com.elevator.dispatch;
+
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// 最近电梯启发式：按楼层距离计价，反向电梯需先运行到楼宇顶层或底层再折返
+@RequiredArgsConstructor
+@Slf4j
+public class NearestCarStrategy implements DispatchStrategy {
+
+    public static final String NAME = "nearest-car";
+
+    // 空闲电梯每个待处理请求、以及联合指派中每个额外呼叫的成本
+    private static final int PENDING_COST = 2;
+
+    private final BuildingTopology building;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int cost(ElevatorSnapshot elevator, int requestFloor, Direction requestDirection, int pendingRequests) {
+        // 如果电梯已满，返回最大成本
+        if (elevator.isFull()) {
+            log.debug("Elevator {} is full, cost=MAX", elevator.getId());
+            return Integer.MAX_VALUE;
+        }
+
+        int currentFloor = elevator.getCurrentFloor();
+        Direction currentDirection = elevator.getDirection();
+        int distance = Math.abs(currentFloor - requestFloor);
+
+        // 电梯空闲状态
+        if (currentDirection == Direction.IDLE) {
+            // 添加负载均衡因子，每个待处理请求增加2的成本
+            int cost = distance + pendingRequests * PENDING_COST;
+            log.debug("IDLE state, cost: {}, pending requests: {}", cost, pendingRequests);
+            return cost;
+        }
+
+        // 同方向
+        if ((currentDirection == Direction.UP && requestDirection == Direction.UP && requestFloor >= currentFloor) ||
+            (currentDirection == Direction.DOWN && requestDirection == Direction.DOWN && requestFloor <= currentFloor)) {
+            log.debug("Same direction, cost: {}", distance);
+            return distance;
+        }
+
+        // 反方向或需要绕行
+        int cost;
+        if (currentDirection == Direction.UP) {
+            int top = building.getHighestFloor();
+            cost = (top - currentFloor) + (top - requestFloor);
+            log.debug("UP direction, need to turn around, cost: {}", cost);
+        } else {
+            int bottom = building.getLowestFloor();
+            cost = (currentFloor - bottom) + (requestFloor - bottom);
+            log.debug("DOWN direction, need to turn around, cost: {}", cost);
+        }
+        // 绕行至少要走完楼层距离，保证成本下界成立
+        return Math.max(cost, distance);
+    }
+
+    @Override
+    public int stopCost() {
+        return PENDING_COST;
+    }
+
+    @Override
+    public int lowerBound(int floorDistance) {
+        return floorDistance;
+    }
+}
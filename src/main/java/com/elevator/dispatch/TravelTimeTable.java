@@ -0,0 +1,93 @@
+package com.elevator.dispatch;
+
+// 楼宇启动时预先计算的运行时间表（毫秒），调度时只做数组读取
+public class TravelTimeTable {
+
+    // runMillis[d]：从静止出发运行d层并停稳所需时间，含加速和减速，向上取整
+    private final int[] runMillis;
+    // 向下取整的同一张表，作为调度剪枝的下界；分段向上取整之和不会低于它
+    private final int[] minRunMillis;
+    private final int cruiseMillisPerFloor;
+    private final int doorDwellMillis;
+    private final int turnaroundMillis;
+
+    public TravelTimeTable(BuildingTopology building) {
+        double floorHeight = building.getFloorHeightMeters();
+        double maxSpeed = building.getMaxSpeedMetersPerSecond();
+        double acceleration = building.getAccelerationMetersPerSecondSquared();
+
+        this.runMillis = new int[building.getFloors()];
+        this.minRunMillis = new int[building.getFloors()];
+        for (int floors = 1; floors < runMillis.length; floors++) {
+            double millis = runSeconds(floors * floorHeight, maxSpeed, acceleration) * 1000;
+            runMillis[floors] = (int) Math.ceil(millis);
+            minRunMillis[floors] = (int) Math.floor(millis);
+        }
+        this.cruiseMillisPerFloor = (int) Math.floor(floorHeight / maxSpeed * 1000);
+        this.doorDwellMillis = building.getDoorDwellMillis();
+        this.turnaroundMillis = building.getTurnaroundMillis();
+    }
+
+    // 梯形速度曲线；距离不足以加速到额定速度时为三角形曲线
+    private static double runSeconds(double distance, double maxSpeed, double acceleration) {
+        double rampDistance = maxSpeed * maxSpeed / acceleration;
+        if (distance >= rampDistance) {
+            return distance / maxSpeed + maxSpeed / acceleration;
+        }
+        return 2 * Math.sqrt(distance / acceleration);
+    }
+
+    public int run(int floors) {
+        return lookup(runMillis, floors);
+    }
+
+    public int minRun(int floors) {
+        return lookup(minRunMillis, floors);
+    }
+
+    private int lookup(int[] table, int floors) {
+        int last = table.length - 1;
+        if (floors <= last) {
+            return table[floors];
+        }
+        // 超出楼宇范围（例如配置变更前的旧数据）时按额定速度外推
+        return table[last] + (floors - last) * cruiseMillisPerFloor;
+    }
+
+    public int getDoorDwellMillis() {
+        return doorDwellMillis;
+    }
+
+    public int getTurnaroundMillis() {
+        return turnaroundMillis;
+    }
+
+    public int route(int from, int to, int[] sortedStops) {
+        return route(from, to, sortedStops, Math.min(from, to), Math.max(from, to));
+    }
+
+    // 从from运行到to，途中在开区间(low, high)内的每个停靠点停靠开门；sortedStops为升序数组
+    public int route(int from, int to, int[] sortedStops, int low, int high) {
+        low = Math.max(low, Math.min(from, to));
+        high = Math.min(high, Math.max(from, to));
+        int millis = 0;
+        int position = from;
+        if (to >= from) {
+            for (int stop : sortedStops) {
+                if (stop > low && stop < high) {
+                    millis += run(stop - position) + doorDwellMillis;
+                    position = stop;
+                }
+            }
+        } else {
+            for (int i = sortedStops.length - 1; i >= 0; i--) {
+                int stop = sortedStops[i];
+                if (stop > low && stop < high) {
+                    millis += run(position - stop) + doorDwellMillis;
+                    position = stop;
+                }
+            }
+        }
+        return millis + run(Math.abs(to - position));
+    }
+}
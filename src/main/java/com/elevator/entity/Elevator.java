@@ -1,7 +1,9 @@
 package com.elevator.entity;
 
+import com.elevator.fleet.FleetRegistryListener;
 import com.elevator.model.Direction;
 import com.elevator.model.State;
+import com.elevator.model.StopSet;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.ToString;
@@ -12,13 +14,22 @@ import java.util.Set;
 
 @Entity
 @Table(name = "elevators")
+@EntityListeners(FleetRegistryListener.class)
 @Data
 @ToString(exclude = "requests")
 public class Elevator {
+
+    // 未指定电梯组时归入的默认组
+    public static final String DEFAULT_BANK = "default";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // 所属电梯组，创建后不再变化；调度只在同组电梯中选择
+    @Column(nullable = false, length = 64)
+    private String bank = DEFAULT_BANK;
+
     private int maxCapacity;
     private int currentLoad = 0;
     private int currentFloor = 1;
@@ -29,11 +40,26 @@ public class Elevator {
     @Enumerated(EnumType.STRING)
     private State state = State.IDLE;
 
-    // 新增停靠点集合
-    @ElementCollection
-    private Set<Integer> stops = new HashSet<>();
+    // 全楼统一递增的版本号，电梯状态每次变化时由 FleetRegistry 分配，用于条件请求和增量查询
+    private long version;
+
+    // 乐观锁版本，每次写回电梯行时由 Hibernate 检查并加一；多个副本同时修改同一电梯时后提交的一方失败重试
+    @Version
+    @JsonIgnore
+    private long revision;
+
+    // 新增停靠点集合，以紧凑位图存在elevators表的单列中
+    @Convert(converter = StopSetConverter.class)
+    @Column(name = "stop_bitmap", length = 128)
+    private StopSet stops = new StopSet();
 
     @OneToMany(mappedBy = "elevator", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private Set<Request> requests = new HashSet<>();
-}
\ No newline at end of file
+
+    public void setStops(Set<Integer> floors) {
+        StopSet stops = new StopSet();
+        floors.forEach(stops::addFloor);
+        this.stops = stops;
+    }
+}
@@ -1,5 +1,6 @@
 package com.elevator.entity;
 
+import com.elevator.fleet.OpenRequestIndexListener;
 import com.elevator.model.Direction;
 import javax.persistence.*;
 import lombok.Getter;
@@ -11,6 +12,7 @@ import java.util.Date;
 
 @Entity
 @Table(name = "requests")
+@EntityListeners(OpenRequestIndexListener.class)
 @Getter
 @Setter
 @ToString(exclude = "elevator")
@@ -19,6 +21,10 @@ public class Request {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // 呼叫所在的电梯组，只会分配给同组的电梯
+    @Column(length = 64)
+    private String bank = Elevator.DEFAULT_BANK;
+
     private int originFloor;
     private int destinationFloor;
 
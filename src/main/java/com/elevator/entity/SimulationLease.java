@@ -0,0 +1,24 @@
+package com.elevator.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Data;
+
+// 仿真时钟的租约：多个副本共用同一数据库时，同一时钟只由持有未过期租约的副本推进
+@Entity
+@Table(name = "simulation_leases")
+@Data
+public class SimulationLease {
+
+    @Id
+    @Column(length = 128)
+    private String name;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    // 过期时间（毫秒时间戳），持有方每个tick续约
+    private long expiresAt;
+}
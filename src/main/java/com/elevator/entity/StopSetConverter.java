@@ -0,0 +1,21 @@
+package com.elevator.entity;
+
+import com.elevator.model.StopSet;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+// 停靠点集合以单列紧凑位图保存，更新停靠点只需更新elevators表的一行
+@Converter
+public class StopSetConverter implements AttributeConverter<StopSet, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(StopSet stops) {
+        return stops == null ? null : stops.toBytes();
+    }
+
+    @Override
+    public StopSet convertToEntityAttribute(byte[] bytes) {
+        return StopSet.fromBytes(bytes);
+    }
+}
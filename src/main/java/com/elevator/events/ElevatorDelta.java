@@ -0,0 +1,44 @@
+package com.elevator.events;
+
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import com.elevator.model.State;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.util.Arrays;
+
+// 推送给订阅方的电梯状态增量：只带发生变化的字段，未变化的字段为 null 不输出；初始快照带全部字段
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ElevatorDelta {
+    Long elevatorId;
+    Integer currentFloor;
+    Direction direction;
+    State state;
+    int[] stops;
+    Boolean removed;
+
+    public static ElevatorDelta snapshot(ElevatorSnapshot elevator) {
+        return new ElevatorDelta(elevator.getId(), elevator.getCurrentFloor(), elevator.getDirection(),
+                elevator.getState(), elevator.getStops(), null);
+    }
+
+    // 两次状态之间没有可见变化（例如只有载客数变化）时返回 null
+    public static ElevatorDelta between(Long elevatorId, ElevatorSnapshot previous, ElevatorSnapshot current) {
+        if (current == null) {
+            return previous == null ? null : new ElevatorDelta(elevatorId, null, null, null, null, true);
+        }
+        if (previous == null) {
+            return snapshot(current);
+        }
+        Integer floor = previous.getCurrentFloor() == current.getCurrentFloor() ? null : current.getCurrentFloor();
+        Direction direction = previous.getDirection() == current.getDirection() ? null : current.getDirection();
+        State state = previous.getState() == current.getState() ? null : current.getState();
+        int[] stops = Arrays.equals(previous.getStops(), current.getStops()) ? null : current.getStops();
+        if (floor == null && direction == null && state == null && stops == null) {
+            return null;
+        }
+        return new ElevatorDelta(elevatorId, floor, direction, state, stops, null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.elevator.events;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ElevatorEventProperties.class)
+public class ElevatorEventConfiguration {
+}
@@ -0,0 +1,15 @@
+package com.elevator.events;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.events")
+public class ElevatorEventProperties {
+
+    // 单个SSE连接的最长保持时间，到期后由客户端（EventSource）自动重连，单位毫秒
+    private long timeoutMillis = 30 * 60 * 1000;
+
+    // 心跳注释的发送周期，防止代理断开空闲连接，同时及时发现已断开的客户端，单位毫秒
+    private long heartbeatMillis = 15_000;
+}
@@ -0,0 +1,166 @@
+package com.elevator.events;
+
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.fleet.FleetRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 电梯状态增量推送：订阅电梯状态表的提交后变化，按订阅方的电梯过滤条件以SSE推送。
+// 所有发送都在单独的事件线程上按顺序执行，不占用提交事务的线程
+@Component
+@Slf4j
+public class ElevatorEventStream {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String DELTA_EVENT = "delta";
+
+    private final FleetRegistry fleetRegistry;
+    private final long timeoutMillis;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Counter deltaCounter;
+    private final ScheduledExecutorService executor;
+    private final FleetRegistry.ChangeListener listener = this::onChange;
+
+    public ElevatorEventStream(FleetRegistry fleetRegistry, ElevatorEventProperties properties,
+                               MeterRegistry meterRegistry) {
+        if (properties.getHeartbeatMillis() <= 0) {
+            throw new IllegalStateException("elevator.events.heartbeat-millis must be positive");
+        }
+        this.fleetRegistry = fleetRegistry;
+        this.timeoutMillis = properties.getTimeoutMillis();
+        this.deltaCounter = Counter.builder("elevator.events.deltas")
+                .description("Elevator state deltas published to subscribers")
+                .register(meterRegistry);
+        Gauge.builder("elevator.events.subscribers", subscribers, List::size)
+                .register(meterRegistry);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "elevator-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::heartbeat, properties.getHeartbeatMillis(),
+                properties.getHeartbeatMillis(), TimeUnit.MILLISECONDS);
+        fleetRegistry.addChangeListener(listener);
+    }
+
+    // elevatorIds 为空表示订阅全部电梯，bank 为空表示不限电梯组；snapshot 为 true 时先推送当前状态
+    public SseEmitter subscribe(Set<Long> elevatorIds, String bank, boolean snapshot) {
+        return subscribe(elevatorIds, bank, snapshot, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Set<Long> elevatorIds, String bank, boolean snapshot, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, elevatorIds, bank);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        // 先加入订阅再排队发送快照：快照之后的变化都不会漏掉，快照之前排队的增量最多重复
+        subscribers.add(subscriber);
+        if (snapshot) {
+            executor.execute(() -> {
+                List<ElevatorSnapshot> fleet = bank == null
+                        ? new ArrayList<>(fleetRegistry.getElevators()) : fleetRegistry.getElevators(bank);
+                fleet.sort(Comparator.comparing(ElevatorSnapshot::getId));
+                for (ElevatorSnapshot elevator : fleet) {
+                    if (subscriber.accepts(elevator.getId(), elevator.getBank())
+                            && !send(subscriber, SNAPSHOT_EVENT, ElevatorDelta.snapshot(elevator))) {
+                        return;
+                    }
+                }
+            });
+        }
+        log.debug("Event subscriber added, filter={}, bank={}, total={}", elevatorIds, bank, subscribers.size());
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void onChange(Long elevatorId, ElevatorSnapshot previous, ElevatorSnapshot current) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        ElevatorDelta delta = ElevatorDelta.between(elevatorId, previous, current);
+        if (delta == null) {
+            return;
+        }
+        String bank = current != null ? current.getBank() : previous.getBank();
+        executor.execute(() -> {
+            deltaCounter.increment();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(elevatorId, bank)) {
+                    send(subscriber, DELTA_EVENT, delta);
+                }
+            }
+        });
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                drop(subscriber, e);
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, String name, ElevatorDelta delta) {
+        try {
+            subscriber.emitter.send(SseEmitter.event().name(name).data(delta));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+            return false;
+        }
+    }
+
+    // 客户端断开后发送会失败，移除订阅并结束连接
+    private void drop(Subscriber subscriber, Exception cause) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Event subscriber dropped: {}", cause.getMessage());
+            subscriber.emitter.completeWithError(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fleetRegistry.removeChangeListener(listener);
+        executor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Collection<Long> elevatorIds;
+        private final String bank;
+
+        Subscriber(SseEmitter emitter, Collection<Long> elevatorIds, String bank) {
+            this.emitter = emitter;
+            this.elevatorIds = elevatorIds;
+            this.bank = bank;
+        }
+
+        boolean accepts(Long elevatorId, String elevatorBank) {
+            return (elevatorIds.isEmpty() || elevatorIds.contains(elevatorId))
+                    && (bank == null || bank.equals(elevatorBank));
+        }
+    }
+}
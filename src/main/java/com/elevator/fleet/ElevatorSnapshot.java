@@ -0,0 +1,62 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Elevator;
+import com.elevator.model.Direction;
+import com.elevator.model.State;
+import lombok.Value;
+
+import java.util.Arrays;
+
+// 电梯状态的不可变快照，调度时直接读取，无需访问数据库
+@Value
+public class ElevatorSnapshot {
+    Long id;
+    int maxCapacity;
+    int currentLoad;
+    int currentFloor;
+    Direction direction;
+    State state;
+    // 升序排列的停靠楼层，调度时按行程顺序遍历
+    int[] stops;
+    long version;
+    // 数据库行的乐观锁版本；小于数据库中的值说明其他副本修改过该电梯，快照已过时
+    long revision;
+    String bank;
+
+    public static ElevatorSnapshot of(Elevator elevator) {
+        return new ElevatorSnapshot(
+                elevator.getId(),
+                elevator.getMaxCapacity(),
+                elevator.getCurrentLoad(),
+                elevator.getCurrentFloor(),
+                elevator.getDirection() == null ? Direction.IDLE : elevator.getDirection(),
+                elevator.getState(),
+                elevator.getStops().toFloorArray(),
+                elevator.getVersion(),
+                elevator.getRevision(),
+                elevator.getBank() == null ? Elevator.DEFAULT_BANK : elevator.getBank());
+    }
+
+    public boolean hasStop(int floor) {
+        return Arrays.binarySearch(stops, floor) >= 0;
+    }
+
+    // 加上一个停靠楼层后的快照，用于调度尚未写入的计划
+    public ElevatorSnapshot withStop(int floor) {
+        int index = Arrays.binarySearch(stops, floor);
+        if (index >= 0) {
+            return this;
+        }
+        int insertion = -index - 1;
+        int[] added = new int[stops.length + 1];
+        System.arraycopy(stops, 0, added, 0, insertion);
+        added[insertion] = floor;
+        System.arraycopy(stops, insertion, added, insertion + 1, stops.length - insertion);
+        return new ElevatorSnapshot(id, maxCapacity, currentLoad, currentFloor, direction, state, added,
+                version, revision, bank);
+    }
+
+    public boolean isFull() {
+        return currentLoad >= maxCapacity;
+    }
+}
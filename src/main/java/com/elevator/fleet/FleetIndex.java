@@ -0,0 +1,105 @@
+package com.elevator.fleet;
+
+import com.elevator.model.Direction;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// 按运行方向分组、按楼层排序的电梯索引，只收录未满载的电梯
+class FleetIndex {
+
+    private final Map<Direction, ConcurrentSkipListMap<Integer, Set<Long>>> byDirection = new EnumMap<>(Direction.class);
+
+    FleetIndex() {
+        for (Direction direction : Direction.values()) {
+            byDirection.put(direction, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    void add(ElevatorSnapshot elevator) {
+        if (elevator.isFull()) {
+            return;
+        }
+        floors(elevator).computeIfAbsent(elevator.getCurrentFloor(), floor -> ConcurrentHashMap.newKeySet())
+                .add(elevator.getId());
+    }
+
+    void remove(ElevatorSnapshot elevator) {
+        floors(elevator).computeIfPresent(elevator.getCurrentFloor(), (floor, ids) -> {
+            ids.remove(elevator.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // 从指定楼层向上下两侧同时扩展，按楼层距离由近到远访问各方向的电梯
+    void visitByDistance(int floor, Visitor visitor) {
+        Cursor[] cursors = new Cursor[byDirection.size() * 2];
+        int count = 0;
+        for (ConcurrentSkipListMap<Integer, Set<Long>> floors : byDirection.values()) {
+            cursors[count++] = new Cursor(floors.tailMap(floor, true), floor);
+            cursors[count++] = new Cursor(floors.headMap(floor, false).descendingMap(), floor);
+        }
+
+        while (true) {
+            Cursor nearest = null;
+            for (Cursor cursor : cursors) {
+                if (cursor.hasNext() && (nearest == null || cursor.distance() < nearest.distance())) {
+                    nearest = cursor;
+                }
+            }
+            if (nearest == null) {
+                return;
+            }
+            int distance = nearest.distance();
+            for (Long elevatorId : nearest.next()) {
+                if (!visitor.visit(elevatorId, distance)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private NavigableMap<Integer, Set<Long>> floors(ElevatorSnapshot elevator) {
+        return byDirection.get(elevator.getDirection());
+    }
+
+    interface Visitor {
+        // 返回false时停止访问
+        boolean visit(Long elevatorId, int distance);
+    }
+
+    private static class Cursor {
+        private final Iterator<Map.Entry<Integer, Set<Long>>> entries;
+        private final int origin;
+        private Map.Entry<Integer, Set<Long>> current;
+
+        Cursor(NavigableMap<Integer, Set<Long>> floors, int origin) {
+            this.entries = floors.entrySet().iterator();
+            this.origin = origin;
+            advance();
+        }
+
+        boolean hasNext() {
+            return current != null;
+        }
+
+        int distance() {
+            return Math.abs(current.getKey() - origin);
+        }
+
+        Set<Long> next() {
+            Set<Long> ids = current.getValue();
+            advance();
+            return ids;
+        }
+
+        private void advance() {
+            current = entries.hasNext() ? entries.next() : null;
+        }
+    }
+}
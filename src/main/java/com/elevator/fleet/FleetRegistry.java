@@ -0,0 +1,270 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Elevator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// 内存中的电梯群状态表，调度直接读取，由实体监听器与JPA实体保持一致
+@Component
+public class FleetRegistry {
+
+    private final ConcurrentMap<Long, ElevatorSnapshot> elevators = new ConcurrentHashMap<>();
+    // 每部电梯未完成请求数，分配时加一、完成时减一，无需扫描requests表
+    private final ConcurrentMap<Long, AtomicInteger> pendingCounts = new ConcurrentHashMap<>();
+    // 每个电梯组一个楼层索引，调度只遍历本组的电梯，不同组的调度互不干扰
+    private final ConcurrentMap<String, FleetIndex> indexes = new ConcurrentHashMap<>();
+    // 每个电梯组的全部电梯（含满载的），按组列出电梯时不必扫描整个车队
+    private final ConcurrentMap<String, ConcurrentMap<Long, ElevatorSnapshot>> byBank = new ConcurrentHashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // 版本号发生器，启动加载时推进到已持久化的最大版本，保证重启后仍单调递增
+    private final AtomicLong versionSequence = new AtomicLong();
+    // 已提交的版本号：事务提交后才更新，条件请求不会拿到比数据库内容更新的 ETag
+    private final ConcurrentMap<Long, Long> committedVersions = new ConcurrentHashMap<>();
+    private final AtomicLong committedFleetVersion = new AtomicLong();
+
+    public void register(Elevator elevator) {
+        ElevatorSnapshot previous = elevators.get(elevator.getId());
+        ElevatorSnapshot next = ElevatorSnapshot.of(elevator);
+        versionSequence.accumulateAndGet(next.getVersion(), Math::max);
+        replace(elevator.getId(), previous, next);
+        recordChange(elevator.getId(), previous, next);
+    }
+
+    public void registerAll(Collection<Elevator> fleet) {
+        fleet.forEach(this::register);
+    }
+
+    public void unregister(Long elevatorId) {
+        ElevatorSnapshot previous = elevators.get(elevatorId);
+        replace(elevatorId, previous, null);
+        recordChange(elevatorId, previous, null);
+        AtomicInteger pending = pendingCounts.remove(elevatorId);
+        if (pending != null) {
+            journal().recordPendingDelta(elevatorId, -pending.get());
+        }
+    }
+
+    public Optional<ElevatorSnapshot> find(Long elevatorId) {
+        return Optional.ofNullable(elevators.get(elevatorId));
+    }
+
+    public Collection<ElevatorSnapshot> getElevators() {
+        return Collections.unmodifiableCollection(elevators.values());
+    }
+
+    public List<ElevatorSnapshot> getElevators(String bank) {
+        ConcurrentMap<Long, ElevatorSnapshot> members = byBank.get(bank);
+        return members == null ? new ArrayList<>() : new ArrayList<>(members.values());
+    }
+
+    public int size() {
+        return elevators.size();
+    }
+
+    public long nextVersion() {
+        return versionSequence.incrementAndGet();
+    }
+
+    // 全楼版本：任意电梯状态变化或电梯被删除后都会增大
+    public long getFleetVersion() {
+        return committedFleetVersion.get();
+    }
+
+    public Optional<Long> getVersion(Long elevatorId) {
+        return Optional.ofNullable(committedVersions.get(elevatorId));
+    }
+
+    // 版本号大于 since 的电梯，按编号排序
+    public List<Long> findChangedSince(long since) {
+        return committedVersions.entrySet().stream()
+                .filter(entry -> entry.getValue() > since)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    // 按与指定楼层的距离由近到远访问该组未满载的电梯，visitor返回false时提前结束
+    public void visitByDistance(String bank, int floor, NearestVisitor visitor) {
+        FleetIndex index = indexes.get(bank);
+        if (index == null) {
+            return;
+        }
+        index.visitByDistance(floor, (elevatorId, distance) -> {
+            ElevatorSnapshot elevator = elevators.get(elevatorId);
+            return elevator == null || visitor.visit(elevator, distance);
+        });
+    }
+
+    public interface NearestVisitor {
+        boolean visit(ElevatorSnapshot elevator, int distance);
+    }
+
+    // 电梯状态变化的订阅者；事务内的变化在提交后按电梯合并通知一次，回滚的变化不会通知，current 为 null 表示电梯已删除
+    public interface ChangeListener {
+        void onChange(Long elevatorId, ElevatorSnapshot previous, ElevatorSnapshot current);
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setPendingCount(Long elevatorId, int count) {
+        pendingCounts.computeIfAbsent(elevatorId, id -> new AtomicInteger()).set(count);
+    }
+
+    // 按数据库重新同步电梯时直接设定计数，与增减一样随事务回滚
+    public void resetPending(Long elevatorId, int count) {
+        int before = pendingCounts.computeIfAbsent(elevatorId, id -> new AtomicInteger()).getAndSet(count);
+        journal().recordPendingDelta(elevatorId, count - before);
+    }
+
+    public void incrementPending(Long elevatorId) {
+        adjustPending(elevatorId, 1);
+    }
+
+    public void decrementPending(Long elevatorId, int completed) {
+        if (completed > 0) {
+            adjustPending(elevatorId, -completed);
+        }
+    }
+
+    public int getPendingCount(Long elevatorId) {
+        AtomicInteger pending = pendingCounts.get(elevatorId);
+        return pending == null ? 0 : pending.get();
+    }
+
+    public Map<Long, Integer> getPendingCounts() {
+        Map<Long, Integer> counts = new HashMap<>();
+        elevators.keySet().forEach(id -> counts.put(id, getPendingCount(id)));
+        return counts;
+    }
+
+    private void adjustPending(Long elevatorId, int delta) {
+        AtomicInteger pending = pendingCounts.computeIfAbsent(elevatorId, id -> new AtomicInteger());
+        // 绕过服务层直接写入的请求不会计入，计数不允许为负
+        int before = pending.getAndUpdate(count -> Math.max(0, count + delta));
+        journal().recordPendingDelta(elevatorId, Math.max(0, before + delta) - before);
+    }
+
+    // 先加入新位置再移除旧位置，并发调度最多重复看到一部电梯而不会漏掉
+    private void replace(Long elevatorId, ElevatorSnapshot previous, ElevatorSnapshot next) {
+        if (next != null) {
+            indexes.computeIfAbsent(next.getBank(), bank -> new FleetIndex()).add(next);
+            byBank.computeIfAbsent(next.getBank(), bank -> new ConcurrentHashMap<>()).put(elevatorId, next);
+            elevators.put(elevatorId, next);
+        } else {
+            elevators.remove(elevatorId);
+        }
+        if (previous != null && (next == null || !previous.getBank().equals(next.getBank()))) {
+            byBank.get(previous.getBank()).remove(elevatorId);
+        }
+        if (previous != null && !previous.isFull() && !sameIndexPosition(previous, next)) {
+            indexes.get(previous.getBank()).remove(previous);
+        }
+    }
+
+    private static boolean sameIndexPosition(ElevatorSnapshot previous, ElevatorSnapshot next) {
+        return next != null && !next.isFull()
+                && previous.getBank().equals(next.getBank())
+                && previous.getCurrentFloor() == next.getCurrentFloor()
+                && previous.getDirection() == next.getDirection();
+    }
+
+    private void recordChange(Long elevatorId, ElevatorSnapshot previous, ElevatorSnapshot next) {
+        Journal journal = journal();
+        journal.recordSnapshot(elevatorId, previous);
+        if (journal == Journal.NONE) {
+            notifyListeners(elevatorId, previous, next);
+        }
+    }
+
+    private void notifyListeners(Long elevatorId, ElevatorSnapshot previous, ElevatorSnapshot current) {
+        if (current != null) {
+            committedVersions.put(elevatorId, current.getVersion());
+            committedFleetVersion.accumulateAndGet(current.getVersion(), Math::max);
+        } else if (committedVersions.remove(elevatorId) != null) {
+            committedFleetVersion.accumulateAndGet(nextVersion(), Math::max);
+        }
+        if (previous != current) {
+            listeners.forEach(listener -> listener.onChange(elevatorId, previous, current));
+        }
+    }
+
+    // 变更立即生效以便同一事务内可见；事务回滚时撤销本事务内的全部变更
+    private Journal journal() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Journal.NONE;
+        }
+        Journal journal = (Journal) TransactionSynchronizationManager.getResource(this);
+        if (journal == null) {
+            Journal created = new Journal();
+            journal = created;
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FleetRegistry.this);
+                    if (status == STATUS_ROLLED_BACK) {
+                        rollback(created);
+                    } else if (status == STATUS_COMMITTED) {
+                        created.snapshots.forEach((elevatorId, previous) ->
+                                notifyListeners(elevatorId, previous, elevators.get(elevatorId)));
+                    }
+                }
+            });
+        }
+        return journal;
+    }
+
+    private void rollback(Journal journal) {
+        journal.snapshots.forEach((elevatorId, snapshot) ->
+                replace(elevatorId, elevators.get(elevatorId), snapshot));
+        journal.pendingDeltas.forEach((elevatorId, delta) ->
+                pendingCounts.computeIfAbsent(elevatorId, id -> new AtomicInteger())
+                        .getAndUpdate(count -> Math.max(0, count - delta)));
+    }
+
+    private static class Journal {
+        static final Journal NONE = new Journal() {
+            @Override
+            void recordSnapshot(Long elevatorId, ElevatorSnapshot previous) {
+            }
+
+            @Override
+            void recordPendingDelta(Long elevatorId, int delta) {
+            }
+        };
+
+        final Map<Long, ElevatorSnapshot> snapshots = new HashMap<>();
+        final Map<Long, Integer> pendingDeltas = new HashMap<>();
+
+        void recordSnapshot(Long elevatorId, ElevatorSnapshot previous) {
+            if (!snapshots.containsKey(elevatorId)) {
+                snapshots.put(elevatorId, previous);
+            }
+        }
+
+        void recordPendingDelta(Long elevatorId, int delta) {
+            pendingDeltas.merge(elevatorId, delta, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Elevator;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+// Elevator实体监听器，由Hibernate通过Spring容器创建，保证绕过服务层的写入也能同步到内存
+@RequiredArgsConstructor
+public class FleetRegistryListener {
+
+    private final FleetRegistry fleetRegistry;
+
+    // 只有状态确实变化（Hibernate 检测到脏数据）时才会触发，版本号随本次写入一起保存
+    @PrePersist
+    @PreUpdate
+    public void onChange(Elevator elevator) {
+        elevator.setVersion(fleetRegistry.nextVersion());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Elevator elevator) {
+        fleetRegistry.register(elevator);
+    }
+
+    @PostRemove
+    public void onRemove(Elevator elevator) {
+        fleetRegistry.unregister(elevator.getId());
+    }
+}
@@ -0,0 +1,35 @@
+package com.elevator.fleet;
+
+import com.elevator.repository.ElevatorRepository;
+import com.elevator.repository.PendingRequestCount;
+import com.elevator.repository.RequestRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// 启动时从数据库加载已有电梯、未完成请求数及未完成请求索引到内存
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FleetRegistryLoader {
+
+    private final FleetRegistry fleetRegistry;
+    private final OpenRequestIndex openRequestIndex;
+    private final ElevatorRepository elevatorRepository;
+    private final RequestRepository requestRepository;
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        fleetRegistry.registerAll(elevatorRepository.findAll());
+        for (PendingRequestCount count : requestRepository.countPendingRequestsByElevator()) {
+            fleetRegistry.setPendingCount(count.getElevatorId(), (int) count.getPendingCount());
+        }
+        requestRepository.findByCompletedFalseAndElevatorIsNotNull().forEach(openRequestIndex::register);
+        log.info("Fleet registry loaded with {} elevators and {} open requests",
+                 fleetRegistry.size(), openRequestIndex.size());
+    }
+}
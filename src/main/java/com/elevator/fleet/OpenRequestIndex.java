@@ -0,0 +1,286 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.model.Direction;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// 内存中每部电梯的未完成请求索引，按起始楼层（未上车）和目的楼层（已上车）分组，
+// 电梯到站时只需加载该楼层涉及的请求；由实体监听器与JPA实体保持一致。
+// 按电梯组分片，每组一把锁：请求只会分配给同组的电梯，不同组的调度和步进互不阻塞
+@Component
+public class OpenRequestIndex {
+
+    private final ConcurrentMap<String, Shard> shards = new ConcurrentHashMap<>();
+    // 电梯到所在分片的路由，电梯创建后不会换组
+    private final ConcurrentMap<Long, Shard> elevatorShards = new ConcurrentHashMap<>();
+
+    // 按请求当前状态更新索引，已完成或未分配电梯的请求从索引中移除；重复调用没有副作用
+    public void register(Request request) {
+        Entry next = Entry.of(request);
+        Shard shard = shard(bankOf(request));
+        Entry previous = shard.register(request.getId(), next);
+        if (!Objects.equals(previous, next)) {
+            journal().record(shard, request.getId(), previous);
+        }
+    }
+
+    // 删除很少发生，逐组查找请求所在的分片
+    public void unregister(Long requestId) {
+        for (Shard shard : shards.values()) {
+            Entry previous = shard.register(requestId, null);
+            if (previous != null) {
+                journal().record(shard, requestId, previous);
+                return;
+            }
+        }
+    }
+
+    // 按数据库中该电梯的未完成请求重建它的索引：不在其中的条目移除，其余按当前状态更新
+    public void replaceElevator(Long elevatorId, Collection<Request> requests) {
+        Shard indexed = elevatorShards.get(elevatorId);
+        if (indexed != null) {
+            Set<Long> current = indexed.requestIdsOf(elevatorId);
+            requests.forEach(request -> current.remove(request.getId()));
+            current.forEach(this::unregister);
+        }
+        requests.forEach(this::register);
+    }
+
+    // 电梯到达该楼层时需要处理的请求：在此等待上车的，以及已上车且在此下车的
+    public List<Long> requestIdsAt(Long elevatorId, int floor) {
+        Shard shard = elevatorShards.get(elevatorId);
+        return shard == null ? Collections.emptyList() : shard.requestIdsAt(elevatorId, floor);
+    }
+
+    // 该组该楼层同方向已有乘客在等待的电梯；有多部时取编号最小的一部
+    public Optional<Long> findWaitingElevator(String bank, int originFloor, Direction direction) {
+        Shard shard = shards.get(bank);
+        return shard == null ? Optional.empty() : shard.findWaitingElevator(new HallKey(bank, originFloor, direction));
+    }
+
+    public int openCount(Long elevatorId) {
+        Shard shard = elevatorShards.get(elevatorId);
+        return shard == null ? 0 : shard.openCount(elevatorId);
+    }
+
+    public int size() {
+        return shards.values().stream().mapToInt(Shard::size).sum();
+    }
+
+    private Shard shard(String bank) {
+        return shards.computeIfAbsent(bank, name -> new Shard());
+    }
+
+    private static String bankOf(Request request) {
+        return request.getBank() == null ? Elevator.DEFAULT_BANK : request.getBank();
+    }
+
+    private final class Shard {
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<Long, ElevatorRequests> byElevator = new HashMap<>();
+        // 按楼层和方向统计各电梯上仍在等待的呼叫数，新呼叫据此并入已分配的电梯
+        private final Map<HallKey, Map<Long, Integer>> waitingByHall = new HashMap<>();
+
+        // 写入请求的新条目（null 表示移除），返回原条目
+        synchronized Entry register(Long requestId, Entry next) {
+            Entry previous = next == null ? entries.remove(requestId) : entries.put(requestId, next);
+            if (!Objects.equals(previous, next)) {
+                move(requestId, previous, next);
+            }
+            return previous;
+        }
+
+        synchronized Set<Long> requestIdsOf(Long elevatorId) {
+            Set<Long> ids = new HashSet<>();
+            ElevatorRequests requests = byElevator.get(elevatorId);
+            if (requests != null) {
+                requests.waitingByOrigin.values().forEach(ids::addAll);
+                requests.ridingByDestination.values().forEach(ids::addAll);
+            }
+            return ids;
+        }
+
+        synchronized List<Long> requestIdsAt(Long elevatorId, int floor) {
+            ElevatorRequests requests = byElevator.get(elevatorId);
+            if (requests == null) {
+                return Collections.emptyList();
+            }
+            List<Long> ids = new ArrayList<>();
+            ids.addAll(requests.waitingByOrigin.getOrDefault(floor, Collections.emptySet()));
+            ids.addAll(requests.ridingByDestination.getOrDefault(floor, Collections.emptySet()));
+            return ids;
+        }
+
+        synchronized Optional<Long> findWaitingElevator(HallKey hall) {
+            Map<Long, Integer> elevators = waitingByHall.get(hall);
+            return elevators == null ? Optional.empty() : elevators.keySet().stream().min(Long::compare);
+        }
+
+        synchronized int openCount(Long elevatorId) {
+            ElevatorRequests requests = byElevator.get(elevatorId);
+            return requests == null ? 0 : requests.size;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void move(Long requestId, Entry previous, Entry next) {
+            if (previous != null) {
+                ElevatorRequests requests = byElevator.get(previous.elevatorId);
+                requests.remove(requestId, previous);
+                if (requests.size == 0) {
+                    byElevator.remove(previous.elevatorId);
+                }
+                if (!previous.pickedUp) {
+                    Map<Long, Integer> elevators = waitingByHall.get(previous.hallKey());
+                    if (elevators.merge(previous.elevatorId, -1, Integer::sum) == 0) {
+                        elevators.remove(previous.elevatorId);
+                        if (elevators.isEmpty()) {
+                            waitingByHall.remove(previous.hallKey());
+                        }
+                    }
+                }
+            }
+            if (next != null) {
+                elevatorShards.putIfAbsent(next.elevatorId, this);
+                byElevator.computeIfAbsent(next.elevatorId, id -> new ElevatorRequests()).add(requestId, next);
+                if (!next.pickedUp) {
+                    waitingByHall.computeIfAbsent(next.hallKey(), key -> new HashMap<>())
+                            .merge(next.elevatorId, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    // 变更立即生效以便同一事务内可见；事务回滚时恢复本事务内修改过的请求
+    private Journal journal() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Journal.NONE;
+        }
+        Journal journal = (Journal) TransactionSynchronizationManager.getResource(this);
+        if (journal == null) {
+            Journal created = new Journal();
+            journal = created;
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OpenRequestIndex.this);
+                    if (status == STATUS_ROLLED_BACK) {
+                        rollback(created);
+                    }
+                }
+            });
+        }
+        return journal;
+    }
+
+    private void rollback(Journal journal) {
+        journal.entries.forEach((requestId, recorded) -> recorded.shard.register(requestId, recorded.entry));
+    }
+
+    @Value
+    private static class Entry {
+        long elevatorId;
+        String bank;
+        int originFloor;
+        int destinationFloor;
+        Direction direction;
+        boolean pickedUp;
+
+        static Entry of(Request request) {
+            if (request.isCompleted() || request.getElevator() == null) {
+                return null;
+            }
+            String bank = request.getBank() == null ? Elevator.DEFAULT_BANK : request.getBank();
+            return new Entry(request.getElevator().getId(), bank, request.getOriginFloor(),
+                    request.getDestinationFloor(), request.getDirection(), request.isPassengerPickedUp());
+        }
+
+        HallKey hallKey() {
+            return new HallKey(bank, originFloor, direction);
+        }
+    }
+
+    @Value
+    private static class HallKey {
+        String bank;
+        int floor;
+        Direction direction;
+    }
+
+    private static class ElevatorRequests {
+        final Map<Integer, Set<Long>> waitingByOrigin = new HashMap<>();
+        final Map<Integer, Set<Long>> ridingByDestination = new HashMap<>();
+        int size;
+
+        void add(Long requestId, Entry entry) {
+            floorsOf(entry).computeIfAbsent(floorOf(entry), floor -> new LinkedHashSet<>()).add(requestId);
+            size++;
+        }
+
+        void remove(Long requestId, Entry entry) {
+            Map<Integer, Set<Long>> floors = floorsOf(entry);
+            Set<Long> ids = floors.get(floorOf(entry));
+            if (ids != null && ids.remove(requestId)) {
+                size--;
+                if (ids.isEmpty()) {
+                    floors.remove(floorOf(entry));
+                }
+            }
+        }
+
+        private Map<Integer, Set<Long>> floorsOf(Entry entry) {
+            return entry.pickedUp ? ridingByDestination : waitingByOrigin;
+        }
+
+        private static int floorOf(Entry entry) {
+            return entry.pickedUp ? entry.destinationFloor : entry.originFloor;
+        }
+    }
+
+    private static class Journal {
+        static final Journal NONE = new Journal() {
+            @Override
+            void record(Shard shard, Long requestId, Entry previous) {
+            }
+        };
+
+        final Map<Long, Recorded> entries = new HashMap<>();
+
+        void record(Shard shard, Long requestId, Entry previous) {
+            if (!entries.containsKey(requestId)) {
+                entries.put(requestId, new Recorded(shard, previous));
+            }
+        }
+    }
+
+    private static final class Recorded {
+        final Shard shard;
+        final Entry entry;
+
+        Recorded(Shard shard, Entry entry) {
+            this.shard = shard;
+            this.entry = entry;
+        }
+    }
+}
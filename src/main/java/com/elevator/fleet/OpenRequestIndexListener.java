@@ -0,0 +1,26 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Request;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Request实体监听器，保证绕过服务层写入的请求也能同步到未完成请求索引
+@RequiredArgsConstructor
+public class OpenRequestIndexListener {
+
+    private final OpenRequestIndex openRequestIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Request request) {
+        openRequestIndex.register(request);
+    }
+
+    @PostRemove
+    public void onRemove(Request request) {
+        openRequestIndex.unregister(request.getId());
+    }
+}
@@ -0,0 +1,117 @@
+package com.elevator.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+// 幂等键缓存：同一个键只执行一次，重试直接返回第一次的结果，不再调度也不访问数据库。
+// 按插入顺序保存，超过容量或有效期的键从最早的一端淘汰；第一次执行失败时移除该键，允许重试
+@Slf4j
+public class IdempotencyCache<T> {
+
+    private final long ttlMillis;
+    private final Map<String, Entry<T>> entries;
+    private final Counter replays;
+
+    public IdempotencyCache(String name, IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getMaxEntries() <= 0 || properties.getTtlMillis() <= 0) {
+            throw new IllegalStateException("elevator.idempotency.max-entries and ttl-millis must be positive");
+        }
+        int maxEntries = properties.getMaxEntries();
+        this.ttlMillis = properties.getTtlMillis();
+        this.entries = new LinkedHashMap<String, Entry<T>>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.replays = Counter.builder("elevator.idempotency.replays")
+                .description("Retried submissions answered from the idempotency cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("elevator.idempotency.keys", this, IdempotencyCache::size)
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    // fingerprint 为请求参数，同一个键携带不同参数时视为客户端错误；
+    // 第一次执行还未完成时，并发到达的重试等待它的结果
+    public T execute(String key, Object fingerprint, Supplier<T> action) {
+        Entry<T> entry;
+        boolean first = false;
+        synchronized (entries) {
+            expire(System.currentTimeMillis());
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(fingerprint);
+                entries.put(key, entry);
+                first = true;
+            }
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with different parameters");
+        }
+
+        if (first) {
+            try {
+                T result = action.get();
+                entry.result.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        replays.increment();
+        log.debug("Replaying result for idempotency key {}", key);
+        try {
+            return entry.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original submission", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void expire(long now) {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdAt < ttlMillis) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry<T> {
+        private final Object fingerprint;
+        private final long createdAt = System.currentTimeMillis();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Entry(Object fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.elevator.idempotency;
+
+import com.elevator.entity.Request;
+import com.elevator.model.RequestTicket;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfiguration {
+
+    @Bean
+    public IdempotencyCache<Request> requestIdempotencyCache(IdempotencyProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        return new IdempotencyCache<>("request", properties, meterRegistry);
+    }
+
+    @Bean
+    public IdempotencyCache<RequestTicket> ticketIdempotencyCache(IdempotencyProperties properties,
+                                                                  MeterRegistry meterRegistry) {
+        return new IdempotencyCache<>("ticket", properties, meterRegistry);
+    }
+}
@@ -0,0 +1,15 @@
+package com.elevator.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.idempotency")
+public class IdempotencyProperties {
+
+    // 每个接口最多记住的幂等键数量，超出后淘汰最早的
+    private int maxEntries = 10_000;
+
+    // 幂等键的有效期，需覆盖网关的重试窗口，单位毫秒
+    private long ttlMillis = 10 * 60 * 1000;
+}
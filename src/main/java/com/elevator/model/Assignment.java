@@ -0,0 +1,13 @@
+package com.elevator.model;
+
+import lombok.Value;
+
+// 批量导入时每个请求的分配结果
+@Value
+public class Assignment {
+    Long requestId;
+    Long elevatorId;
+    int originFloor;
+    int destinationFloor;
+    Direction direction;
+}
@@ -0,0 +1,26 @@
+package com.elevator.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+// 一次乘梯请求的起止楼层及所在电梯组（为空时为默认组），批量导入时使用
+@Value
+public class HallCall {
+    int originFloor;
+    int destinationFloor;
+    String bank;
+
+    public HallCall(int originFloor, int destinationFloor) {
+        this(originFloor, destinationFloor, null);
+    }
+
+    @JsonCreator
+    public HallCall(@JsonProperty("originFloor") int originFloor,
+                    @JsonProperty("destinationFloor") int destinationFloor,
+                    @JsonProperty("bank") String bank) {
+        this.originFloor = originFloor;
+        this.destinationFloor = destinationFloor;
+        this.bank = bank;
+    }
+}
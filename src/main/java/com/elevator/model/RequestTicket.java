@@ -0,0 +1,17 @@
+package com.elevator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+// 异步提交的受理凭据：排队中只有 ticketId 和状态，分配后带上请求和电梯编号，失败时带原因
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RequestTicket {
+    String ticketId;
+    TicketStatus status;
+    int originFloor;
+    int destinationFloor;
+    Long requestId;
+    Long elevatorId;
+    String error;
+}
@@ -0,0 +1,15 @@
+package com.elevator.model;
+
+import lombok.Value;
+
+// 一次推进后的电梯状态摘要
+@Value
+public class StepReport {
+    Long elevatorId;
+    int ticks;
+    int completedRequests;
+    int pendingRequests;
+    int currentFloor;
+    Direction direction;
+    State state;
+}
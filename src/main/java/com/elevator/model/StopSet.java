@@ -0,0 +1,228 @@
+package com.elevator.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// 按楼层排序的停靠点位图，增删与上下查找都只操作long数组，不装箱不分配
+public class StopSet extends AbstractSet<Integer> {
+
+    public static final int NONE = Integer.MIN_VALUE;
+    // 支持的最低楼层（地下64层），位下标 = 楼层 - MIN_FLOOR
+    public static final int MIN_FLOOR = -64;
+
+    private long[] words = new long[2];
+    private int size;
+
+    public boolean addFloor(int floor) {
+        return setBit(floor);
+    }
+
+    public boolean removeFloor(int floor) {
+        int bit = floor - MIN_FLOOR;
+        int word = bit >>> 6;
+        if (bit < 0 || word >= words.length || (words[word] & (1L << bit)) == 0) {
+            return false;
+        }
+        words[word] &= ~(1L << bit);
+        size--;
+        return true;
+    }
+
+    public boolean hasFloor(int floor) {
+        int bit = floor - MIN_FLOOR;
+        int word = bit >>> 6;
+        return bit >= 0 && word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    // 不低于floor的最近停靠点，没有时返回NONE
+    public int nextAtOrAbove(int floor) {
+        int bit = Math.max(0, floor - MIN_FLOOR);
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            return NONE;
+        }
+        long bits = words[word] & (-1L << bit);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits) + MIN_FLOOR;
+            }
+            if (++word == words.length) {
+                return NONE;
+            }
+            bits = words[word];
+        }
+    }
+
+    // 不高于floor的最近停靠点，没有时返回NONE
+    public int nextAtOrBelow(int floor) {
+        int bit = floor - MIN_FLOOR;
+        if (bit < 0) {
+            return NONE;
+        }
+        int word = bit >>> 6;
+        long bits;
+        if (word >= words.length) {
+            word = words.length - 1;
+            bits = words[word];
+        } else {
+            bits = words[word] & (-1L >>> (63 - (bit & 63)));
+        }
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits) + MIN_FLOOR;
+            }
+            if (--word < 0) {
+                return NONE;
+            }
+            bits = words[word];
+        }
+    }
+
+    // 距离floor最近的停靠点，距离相同时取较低楼层
+    public int nearest(int floor) {
+        int below = nextAtOrBelow(floor);
+        int above = nextAtOrAbove(floor);
+        if (below == NONE) {
+            return above;
+        }
+        if (above == NONE || floor - below <= above - floor) {
+            return below;
+        }
+        return above;
+    }
+
+    public int[] toFloorArray() {
+        int[] floors = new int[size];
+        int i = 0;
+        for (int floor = nextAtOrAbove(MIN_FLOOR); floor != NONE; floor = nextAtOrAbove(floor + 1)) {
+            floors[i++] = floor;
+        }
+        return floors;
+    }
+
+    // 紧凑编码：最低停靠楼层（zigzag变长整数）+ 从该楼层起的位图字节，去掉末尾的零字节
+    public byte[] toBytes() {
+        if (size == 0) {
+            return new byte[0];
+        }
+        int lowest = nextAtOrAbove(MIN_FLOOR);
+        int highest = nextAtOrBelow(Integer.MAX_VALUE - 64);
+        int zigzag = (lowest << 1) ^ (lowest >> 31);
+        int headerLength = 1;
+        for (int rest = zigzag >>> 7; rest != 0; rest >>>= 7) {
+            headerLength++;
+        }
+        byte[] bytes = new byte[headerLength + ((highest - lowest) >>> 3) + 1];
+        int i = 0;
+        while ((zigzag & ~0x7F) != 0) {
+            bytes[i++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        bytes[i++] = (byte) zigzag;
+        for (int floor = lowest; floor != NONE; floor = nextAtOrAbove(floor + 1)) {
+            int offset = floor - lowest;
+            bytes[i + (offset >>> 3)] |= (byte) (1 << (offset & 7));
+        }
+        return bytes;
+    }
+
+    public static StopSet fromBytes(byte[] bytes) {
+        StopSet stops = new StopSet();
+        if (bytes == null || bytes.length == 0) {
+            return stops;
+        }
+        int zigzag = 0;
+        int shift = 0;
+        int i = 0;
+        byte b;
+        do {
+            b = bytes[i++];
+            zigzag |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        int lowest = (zigzag >>> 1) ^ -(zigzag & 1);
+        for (int offset = 0; i < bytes.length; i++, offset += 8) {
+            for (int bits = bytes[i] & 0xFF; bits != 0; bits &= bits - 1) {
+                stops.setBit(lowest + offset + Integer.numberOfTrailingZeros(bits));
+            }
+        }
+        return stops;
+    }
+
+    private boolean setBit(int floor) {
+        int bit = floor - MIN_FLOOR;
+        if (bit < 0) {
+            throw new IllegalArgumentException("Floor " + floor + " is below the lowest supported floor " + MIN_FLOOR);
+        }
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        if ((words[word] & (1L << bit)) != 0) {
+            return false;
+        }
+        words[word] |= 1L << bit;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean add(Integer floor) {
+        return addFloor(floor);
+    }
+
+    @Override
+    public boolean remove(Object floor) {
+        return floor instanceof Integer && removeFloor((Integer) floor);
+    }
+
+    @Override
+    public boolean contains(Object floor) {
+        return floor instanceof Integer && hasFloor((Integer) floor);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = nextAtOrAbove(MIN_FLOOR);
+            private int last = NONE;
+
+            @Override
+            public boolean hasNext() {
+                return next != NONE;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == NONE) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextAtOrAbove(next + 1);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == NONE) {
+                    throw new IllegalStateException();
+                }
+                removeFloor(last);
+                last = NONE;
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.elevator.model;
+
+public enum TicketStatus {
+    QUEUED,
+    ASSIGNED,
+    FAILED
+}
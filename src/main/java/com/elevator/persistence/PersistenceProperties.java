@@ -0,0 +1,30 @@
+package com.elevator.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.persistence")
+public class PersistenceProperties {
+
+    // write-through：每次状态变化在事务内同步写库；write-behind：内存为准，按实体合并后批量写库
+    private Mode mode = Mode.WRITE_THROUGH;
+
+    // 仅write-behind模式有效：periodic 只按周期/数量刷写；on-completion 请求完成时立即刷写
+    private Durability durability = Durability.PERIODIC;
+
+    private long flushIntervalMillis = 500;
+
+    // 待刷写的实体数达到该值时提前触发一次刷写
+    private int flushThreshold = 1000;
+
+    public enum Mode {
+        WRITE_THROUGH,
+        WRITE_BEHIND
+    }
+
+    public enum Durability {
+        PERIODIC,
+        ON_COMPLETION
+    }
+}
@@ -0,0 +1,439 @@
+package com.elevator.persistence;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.fleet.FleetRegistry;
+import com.elevator.repository.ElevatorRepository;
+import com.elevator.repository.RequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// write-behind 模式下电梯和请求的最新状态以内存为准：变化按实体合并，按周期或数量阈值批量写入数据库
+// 读取时优先返回尚未刷写的内存状态；返回的都是脱离持久化上下文的副本，修改后需重新 stage。
+// 每部电梯只能有一个写入方：电梯行带版本条件写入，其他副本先写过时放弃本副本的变化并通知监听方重新同步
+@Component
+@Slf4j
+public class WriteBehindStore {
+
+    private static final String UPDATE_ELEVATOR = "update elevators set current_floor = ?, current_load = ?, "
+            + "direction = ?, state = ?, stop_bitmap = ?, version = ?, revision = revision + 1 "
+            + "where id = ? and revision = ?";
+    private static final String UPDATE_REQUEST = "update requests set passenger_picked_up = ?, completed = ?, "
+            + "completed_at = ? where id = ?";
+
+    private final ElevatorRepository elevatorRepository;
+    private final RequestRepository requestRepository;
+    private final FleetRegistry fleetRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final PersistenceProperties properties;
+
+    private final ConcurrentMap<Long, Pending<Elevator>> pendingElevators = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Pending<Request>> pendingRequests = new ConcurrentHashMap<>();
+    // 本副本最近一次写入后各电梯行的版本；之前读到的副本版本号落后，写入条件取两者中较大的一个
+    private final ConcurrentMap<Long, Long> flushedRevisions = new ConcurrentHashMap<>();
+    private final List<ConflictListener> conflictListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean thresholdFlushQueued = new AtomicBoolean();
+    private ScheduledExecutorService flusher;
+
+    private final Timer flushTimer;
+    private final Timer flushLag;
+    private final Counter flushFailures;
+    private final Counter flushConflicts;
+
+    public WriteBehindStore(ElevatorRepository elevatorRepository, RequestRepository requestRepository,
+                            FleetRegistry fleetRegistry, JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager, PersistenceProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.elevatorRepository = elevatorRepository;
+        this.requestRepository = requestRepository;
+        this.fleetRegistry = fleetRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        // 刷写在独立事务中提交，不受调用方事务回滚影响
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushTimer = Timer.builder("elevator.persistence.flush")
+                .description("Time spent writing one batch of coalesced changes")
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("elevator.persistence.flush.lag")
+                .description("Delay between the first unflushed change of an entity and its flush")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("elevator.persistence.flush.failures")
+                .register(meterRegistry);
+        this.flushConflicts = Counter.builder("elevator.persistence.flush.conflicts")
+                .description("Elevator rows another writer updated first; the local changes were discarded")
+                .register(meterRegistry);
+        Gauge.builder("elevator.persistence.pending", this, WriteBehindStore::pendingCount)
+                .description("Entities with changes not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (isEnabled() && flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "elevator-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = properties.getFlushIntervalMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+            log.info("Write-behind persistence enabled: flush every {} ms or {} entities, durability {}",
+                     interval, properties.getFlushThreshold(), properties.getDurability());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == PersistenceProperties.Mode.WRITE_BEHIND;
+    }
+
+    public Optional<Elevator> findElevator(Long elevatorId) {
+        Elevator pending = latest(pendingElevators, Staged::elevators, elevatorId);
+        if (pending != null) {
+            return Optional.of(copyOf(pending));
+        }
+        return elevatorRepository.findById(elevatorId).map(WriteBehindStore::copyOf);
+    }
+
+    public List<Elevator> findAllElevators() {
+        List<Elevator> elevators = new ArrayList<>();
+        for (Elevator elevator : elevatorRepository.findAll()) {
+            Elevator pending = latest(pendingElevators, Staged::elevators, elevator.getId());
+            elevators.add(copyOf(pending != null ? pending : elevator));
+        }
+        return elevators;
+    }
+
+    public List<Request> findRequests(Iterable<Long> requestIds) {
+        return overlay(requestRepository.findAllById(requestIds));
+    }
+
+    // 用尚未刷写的内存状态替换数据库中读到的请求
+    public List<Request> overlay(List<Request> requests) {
+        List<Request> result = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            Request pending = latest(pendingRequests, Staged::requests, request.getId());
+            result.add(copyOf(pending != null ? pending : request));
+        }
+        return result;
+    }
+
+    // 在事务中调用时变化先留在本事务的缓冲里，提交后才进入待刷写集合，回滚时随事务丢弃
+    public void stageElevators(Collection<Elevator> elevators) {
+        Staged staged = staged();
+        for (Elevator elevator : elevators) {
+            // 不经过JPA时由这里分配版本号，状态没有变化的电梯保持原版本
+            if (!fleetRegistry.find(elevator.getId()).map(ElevatorSnapshot.of(elevator)::equals).orElse(false)) {
+                elevator.setVersion(fleetRegistry.nextVersion());
+            }
+            if (staged != null) {
+                staged.elevators.put(elevator.getId(), copyOf(elevator));
+            } else {
+                stage(pendingElevators, elevator.getId(), copyOf(elevator));
+            }
+            // 不经过JPA写入，实体监听器不会触发，这里直接同步到内存状态表（状态表自己随事务回滚）
+            fleetRegistry.register(elevator);
+        }
+        if (staged == null) {
+            afterStage();
+        }
+    }
+
+    public void stageRequests(Collection<Request> requests) {
+        Staged staged = staged();
+        boolean completed = false;
+        for (Request request : requests) {
+            if (staged != null) {
+                staged.requests.put(request.getId(), copyOf(request));
+            } else {
+                stage(pendingRequests, request.getId(), copyOf(request));
+            }
+            completed |= request.isCompleted();
+        }
+        if (staged != null) {
+            staged.completed |= completed;
+        } else {
+            afterStage(completed);
+        }
+    }
+
+    public int pendingCount() {
+        return pendingElevators.size() + pendingRequests.size();
+    }
+
+    public interface ConflictListener {
+        void onConflict(Long elevatorId);
+    }
+
+    public void addConflictListener(ConflictListener listener) {
+        conflictListeners.add(listener);
+    }
+
+    // 将目前合并的全部变化写入数据库，返回写入的实体数；刷写期间的新变化留到下一次
+    public synchronized int flush() {
+        List<Map.Entry<Long, Pending<Elevator>>> elevators = new ArrayList<>(pendingElevators.entrySet());
+        List<Map.Entry<Long, Pending<Request>>> requests = new ArrayList<>(pendingRequests.entrySet());
+        if (elevators.isEmpty() && requests.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        long[] expected = new long[elevators.size()];
+        List<Integer> rows = new ArrayList<>(elevators.size());
+        for (int i = 0; i < expected.length; i++) {
+            Elevator elevator = elevators.get(i).getValue().entity;
+            expected[i] = Math.max(elevator.getRevision(), flushedRevisions.getOrDefault(elevator.getId(), 0L));
+            rows.add(i);
+        }
+        int[][] counts = flushTransaction.execute(status -> {
+            int[][] updated = jdbcTemplate.batchUpdate(UPDATE_ELEVATOR, rows, rows.size(), (ps, row) -> {
+                Elevator elevator = elevators.get(row).getValue().entity;
+                ps.setInt(1, elevator.getCurrentFloor());
+                ps.setInt(2, elevator.getCurrentLoad());
+                ps.setString(3, elevator.getDirection() == null ? null : elevator.getDirection().name());
+                ps.setString(4, elevator.getState() == null ? null : elevator.getState().name());
+                ps.setBytes(5, elevator.getStops().toBytes());
+                ps.setLong(6, elevator.getVersion());
+                ps.setLong(7, elevator.getId());
+                ps.setLong(8, expected[row]);
+            });
+            jdbcTemplate.batchUpdate(UPDATE_REQUEST, requests, requests.size(), (ps, entry) -> {
+                Request request = entry.getValue().entity;
+                ps.setBoolean(1, request.isPassengerPickedUp());
+                ps.setBoolean(2, request.isCompleted());
+                ps.setTimestamp(3, request.getCompletedAt() == null
+                        ? null : new Timestamp(request.getCompletedAt().getTime()));
+                ps.setLong(4, request.getId());
+            });
+            return updated;
+        });
+        long now = System.nanoTime();
+        flushTimer.record(now - start, TimeUnit.NANOSECONDS);
+
+        // 只移除已写入的版本，刷写期间被再次修改的实体保留到下一次；
+        // 版本条件不成立的电梯已被其他写入方修改，本副本的变化连同之后的修改一起放弃
+        List<Long> conflicts = new ArrayList<>();
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Map.Entry<Long, Pending<Elevator>> entry = elevators.get(row);
+                flushLag.record(now - entry.getValue().stagedAt, TimeUnit.NANOSECONDS);
+                if (count == 0) {
+                    conflicts.add(entry.getKey());
+                    pendingElevators.remove(entry.getKey());
+                    flushedRevisions.remove(entry.getKey());
+                } else {
+                    pendingElevators.remove(entry.getKey(), entry.getValue());
+                    flushedRevisions.put(entry.getKey(), expected[row] + 1);
+                }
+                row++;
+            }
+        }
+        requests.forEach(entry -> {
+            flushLag.record(now - entry.getValue().stagedAt, TimeUnit.NANOSECONDS);
+            pendingRequests.remove(entry.getKey(), entry.getValue());
+        });
+        if (!conflicts.isEmpty()) {
+            flushConflicts.increment(conflicts.size());
+            log.warn("Discarded write-behind changes of elevators {}: updated by another writer", conflicts);
+            notifyConflicts(conflicts);
+        }
+        log.debug("Flushed {} elevators and {} requests", elevators.size() - conflicts.size(), requests.size());
+        return elevators.size() - conflicts.size() + requests.size();
+    }
+
+    // 监听方需要在电梯信箱上重新同步，而刷写可能正在某个信箱的提交回调中执行，所以交给刷写线程异步通知
+    private void notifyConflicts(List<Long> elevatorIds) {
+        Runnable notify = () -> elevatorIds.forEach(id -> conflictListeners.forEach(listener -> {
+            try {
+                listener.onConflict(id);
+            } catch (RuntimeException e) {
+                log.error("Failed to resync elevator {} after a write-behind conflict", id, e);
+            }
+        }));
+        ScheduledExecutorService executor = flusher;
+        if (executor == null) {
+            notify.run();
+        } else {
+            executor.execute(notify);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        if (isEnabled()) {
+            flushQuietly();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 变化仍保留在内存中，下一次刷写重试
+            flushFailures.increment();
+            log.error("Write-behind flush failed, {} entities still pending", pendingCount(), e);
+        }
+    }
+
+    private void afterStage(boolean completed) {
+        if (completed && properties.getDurability() == PersistenceProperties.Durability.ON_COMPLETION) {
+            flush();
+        } else {
+            afterStage();
+        }
+    }
+
+    private void afterStage() {
+        if (pendingCount() >= properties.getFlushThreshold() && thresholdFlushQueued.compareAndSet(false, true)) {
+            ScheduledExecutorService executor = flusher;
+            if (executor == null) {
+                thresholdFlushQueued.set(false);
+                return;
+            }
+            executor.execute(() -> {
+                thresholdFlushQueued.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    // 本事务尚未提交的变化优先于已提交待刷写的变化
+    private <T> T latest(ConcurrentMap<Long, Pending<T>> pending, Function<Staged, Map<Long, T>> local, Long id) {
+        Staged staged = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Staged) TransactionSynchronizationManager.getResource(this) : null;
+        T entity = staged == null ? null : local.apply(staged).get(id);
+        if (entity != null) {
+            return entity;
+        }
+        Pending<T> committed = pending.get(id);
+        return committed == null ? null : committed.entity;
+    }
+
+    // 当前事务的暂存缓冲，没有事务时返回 null；与 FleetRegistry 的事务日志一样在事务结束时解绑
+    private Staged staged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Staged staged = (Staged) TransactionSynchronizationManager.getResource(this);
+        if (staged == null) {
+            Staged created = new Staged();
+            staged = created;
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(WriteBehindStore.this);
+                }
+            });
+        }
+        return staged;
+    }
+
+    // 提交后把本事务的变化并入待刷写集合；与刷写互斥，一次刷写不会只写入同一事务的一部分变化
+    private synchronized void publish(Staged staged) {
+        staged.elevators.forEach((id, elevator) -> stage(pendingElevators, id, elevator));
+        staged.requests.forEach((id, request) -> stage(pendingRequests, id, request));
+        afterStage(staged.completed);
+    }
+
+    private static <T> void stage(ConcurrentMap<Long, Pending<T>> pending, Long id, T entity) {
+        long now = System.nanoTime();
+        // 同一实体的多次变化合并为最新状态，刷写延迟从最早未刷写的变化算起
+        pending.compute(id, (key, previous) -> new Pending<>(entity, previous == null ? now : previous.stagedAt));
+    }
+
+    static Elevator copyOf(Elevator elevator) {
+        Elevator copy = new Elevator();
+        copy.setId(elevator.getId());
+        copy.setBank(elevator.getBank());
+        copy.setMaxCapacity(elevator.getMaxCapacity());
+        copy.setCurrentLoad(elevator.getCurrentLoad());
+        copy.setCurrentFloor(elevator.getCurrentFloor());
+        copy.setDirection(elevator.getDirection());
+        copy.setState(elevator.getState());
+        copy.setStops(elevator.getStops());
+        copy.setVersion(elevator.getVersion());
+        copy.setRevision(elevator.getRevision());
+        return copy;
+    }
+
+    static Request copyOf(Request request) {
+        Request copy = new Request();
+        copy.setId(request.getId());
+        copy.setBank(request.getBank());
+        copy.setOriginFloor(request.getOriginFloor());
+        copy.setDestinationFloor(request.getDestinationFloor());
+        copy.setDirection(request.getDirection());
+        copy.setCompleted(request.isCompleted());
+        copy.setPassengerPickedUp(request.isPassengerPickedUp());
+        copy.setCreatedAt(request.getCreatedAt());
+        copy.setCompletedAt(request.getCompletedAt());
+        copy.setElevator(request.getElevator());
+        return copy;
+    }
+
+    private static final class Staged {
+        final Map<Long, Elevator> elevators = new LinkedHashMap<>();
+        final Map<Long, Request> requests = new LinkedHashMap<>();
+        boolean completed;
+
+        Map<Long, Elevator> elevators() {
+            return elevators;
+        }
+
+        Map<Long, Request> requests() {
+            return requests;
+        }
+    }
+
+    private static final class Pending<T> {
+        final T entity;
+        final long stagedAt;
+
+        Pending(T entity, long stagedAt) {
+            this.entity = entity;
+            this.stagedAt = stagedAt;
+        }
+    }
+}
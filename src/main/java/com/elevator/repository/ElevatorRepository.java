@@ -4,6 +4,10 @@ import com.elevator.entity.Elevator;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ElevatorRepository extends JpaRepository<Elevator, Long> {
-}
\ No newline at end of file
+
+    List<Elevator> findByBank(String bank);
+}
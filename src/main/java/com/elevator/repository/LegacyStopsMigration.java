@@ -0,0 +1,69 @@
+package com.elevator.repository;
+
+import com.elevator.model.StopSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 将旧版 @ElementCollection 的 elevator_stops 表迁移到 elevators.stop_bitmap 列，迁移完成后删除旧表
+// 需在内存状态表加载之前执行
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LegacyStopsMigration {
+
+    static final String LEGACY_TABLE = "elevator_stops";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void migrate() {
+        if (!legacyTableExists()) {
+            return;
+        }
+
+        Map<Long, StopSet> stopsByElevator = new LinkedHashMap<>();
+        jdbcTemplate.query("select elevator_id, stops from " + LEGACY_TABLE, row -> {
+            stopsByElevator.computeIfAbsent(row.getLong(1), id -> new StopSet()).addFloor(row.getInt(2));
+        });
+
+        // 只填充尚未写入位图的电梯，重复执行不会覆盖新数据
+        List<Object[]> updates = new ArrayList<>();
+        stopsByElevator.forEach((elevatorId, stops) -> updates.add(new Object[]{stops.toBytes(), elevatorId}));
+        jdbcTemplate.batchUpdate("update elevators set stop_bitmap = ? where id = ? and stop_bitmap is null", updates);
+        jdbcTemplate.execute("drop table " + LEGACY_TABLE);
+
+        log.info("Migrated stops of {} elevators from {} to elevators.stop_bitmap", stopsByElevator.size(), LEGACY_TABLE);
+    }
+
+    private boolean legacyTableExists() {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{LEGACY_TABLE, LEGACY_TABLE.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,7 @@
+package com.elevator.repository;
+
+// 按电梯分组统计的未完成请求数
+public interface PendingRequestCount {
+    Long getElevatorId();
+    long getPendingCount();
+}
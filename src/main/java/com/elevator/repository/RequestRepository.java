@@ -3,6 +3,7 @@ package com.elevator.repository;
 import com.elevator.entity.Request;
 import com.elevator.model.Direction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,5 +12,10 @@ import java.util.List;
 public interface RequestRepository extends JpaRepository<Request, Long> {
     List<Request> findByCompletedFalse();
     List<Request> findByElevatorIdAndCompletedFalse(Long elevatorId);
+    List<Request> findByCompletedFalseAndElevatorIsNotNull();
     List<Request> findByOriginFloorAndDirectionAndCompletedFalse(int floor, Direction direction);
-}
\ No newline at end of file
+
+    @Query("select r.elevator.id as elevatorId, count(r) as pendingCount from Request r " +
+           "where r.completed = false and r.elevator is not null group by r.elevator.id")
+    List<PendingRequestCount> countPendingRequestsByElevator();
+}
@@ -0,0 +1,23 @@
+package com.elevator.repository;
+
+import com.elevator.entity.SimulationLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SimulationLeaseRepository extends JpaRepository<SimulationLease, String> {
+
+    // 本副本已持有或租约已过期时续约/接管，返回更新的行数；条件在一条语句内判断，多个副本同时接管时只有一个成功
+    @Modifying
+    @Query("update SimulationLease l set l.owner = :owner, l.expiresAt = :expiresAt "
+            + "where l.name = :name and (l.owner = :owner or l.expiresAt < :now)")
+    int renew(@Param("name") String name, @Param("owner") String owner,
+              @Param("expiresAt") long expiresAt, @Param("now") long now);
+
+    @Modifying
+    @Query("update SimulationLease l set l.expiresAt = 0 where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,9 @@
+package com.elevator.service;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BatchDispatchProperties.class)
+public class BatchDispatchConfiguration {
+}
@@ -0,0 +1,15 @@
+package com.elevator.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.dispatch.batch")
+public class BatchDispatchProperties {
+
+    // 攒批时间窗，单位毫秒；0 表示关闭，请求到达后立即单独调度
+    private long windowMillis = 0;
+
+    // 一批最多包含的呼叫数，攒满立即调度；联合指派的计算量约随批大小的三次方增长
+    private int maxSize = 32;
+}
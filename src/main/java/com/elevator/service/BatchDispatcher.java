@@ -0,0 +1,170 @@
+package com.elevator.service;
+
+import com.elevator.dispatch.BuildingTopology;
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.entity.Request;
+import com.elevator.model.HallCall;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 批量调度窗口：时间窗内到达的单个请求攒成一批做联合指派，调用方阻塞等待本批提交后的结果。
+// 时间窗从窗口内第一个呼叫到达时开始计时，攒满 maxSize 时由最后到达的调用方立即调度
+@Component
+@Slf4j
+public class BatchDispatcher {
+
+    private final ElevatorService elevatorService;
+    private final ElevatorBanks banks;
+    private final long windowMillis;
+    private final int maxSize;
+
+    private final DistributionSummary batchSizes;
+    private final Timer waitTimer;
+
+    private ScheduledExecutorService scheduler;
+    private List<PendingCall> window = new ArrayList<>();
+    // 每取走一个窗口加一，过期的定时任务据此识别并放弃
+    private long generation;
+
+    public BatchDispatcher(ElevatorService elevatorService, ElevatorBanks banks,
+                           BatchDispatchProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getWindowMillis() < 0) {
+            throw new IllegalStateException("elevator.dispatch.batch.window-millis must not be negative");
+        }
+        if (properties.getMaxSize() <= 0) {
+            throw new IllegalStateException("elevator.dispatch.batch.max-size must be positive");
+        }
+        this.elevatorService = elevatorService;
+        this.banks = banks;
+        this.windowMillis = properties.getWindowMillis();
+        this.maxSize = properties.getMaxSize();
+        this.batchSizes = DistributionSummary.builder("elevator.dispatch.batch.size")
+                .description("Hall calls assigned together in one dispatch window")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("elevator.dispatch.batch.wait")
+                .description("Time a caller waited for its dispatch window to be assigned")
+                .register(meterRegistry);
+        if (isEnabled()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "elevator-batch-dispatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    // 不同电梯组的呼叫可以进入同一个窗口，联合指派时按组分别求解
+    public Request submit(HallCall hallCall) {
+        // 非法楼层或电梯组在入队前拒绝，不会拖累同一批的其他呼叫
+        BuildingTopology building = banks.topologyFor(hallCall.getBank());
+        building.requireFloor(hallCall.getOriginFloor());
+        building.requireFloor(hallCall.getDestinationFloor());
+
+        long start = System.nanoTime();
+        PendingCall call = new PendingCall(hallCall);
+        List<PendingCall> full = null;
+        synchronized (this) {
+            window.add(call);
+            if (window.size() == 1) {
+                long scheduled = generation;
+                scheduler.schedule(() -> flush(scheduled), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            if (window.size() >= maxSize) {
+                full = takeWindow();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+
+        try {
+            return call.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for dispatch", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush(long scheduled) {
+        List<PendingCall> batch;
+        synchronized (this) {
+            // 该窗口已因攒满被取走，当前窗口由它自己的定时任务负责
+            if (scheduled != generation || window.isEmpty()) {
+                return;
+            }
+            batch = takeWindow();
+        }
+        dispatch(batch);
+    }
+
+    private List<PendingCall> takeWindow() {
+        List<PendingCall> batch = window;
+        window = new ArrayList<>();
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(List<PendingCall> batch) {
+        batchSizes.record(batch.size());
+        List<HallCall> calls = batch.stream().map(call -> call.call).collect(Collectors.toList());
+        try {
+            List<Request> created = elevatorService.createRequestsJointly(calls);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(created.get(i));
+            }
+            log.debug("Dispatched a window of {} hall calls", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Dispatch of {} hall calls failed: {}", batch.size(), e.getMessage());
+            batch.forEach(call -> call.result.completeExceptionally(e));
+        }
+    }
+
+    // 关闭前调度掉已经攒下的呼叫，避免调用方一直阻塞
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        List<PendingCall> batch;
+        synchronized (this) {
+            batch = takeWindow();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private static final class PendingCall {
+        private final HallCall call;
+        private final CompletableFuture<Request> result = new CompletableFuture<>();
+
+        PendingCall(HallCall call) {
+            this.call = call;
+        }
+    }
+}
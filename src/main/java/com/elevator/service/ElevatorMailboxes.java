@@ -0,0 +1,325 @@
+package com.elevator.service;
+
+import com.elevator.fleet.FleetRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// 每部电梯一个信箱，同一电梯的修改按到达顺序在信箱上逐个执行，不同电梯在共享线程池上并行。
+// 信箱是无锁队列，只有空闲的信箱收到消息时才占用一个线程；涉及多部电梯的操作只让这些电梯的信箱停在屏障处再独占执行，
+// 其他电梯照常处理
+@Component
+@Slf4j
+public class ElevatorMailboxes {
+
+    // 一个信箱连续处理的消息数上限，之后让出线程，避免繁忙的电梯饿死其他电梯
+    private static final int THROUGHPUT = 16;
+
+    private static final ThreadLocal<Mailbox> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Barrier> EXCLUSIVE = new ThreadLocal<>();
+
+    private final FleetRegistry fleetRegistry;
+    private final boolean enabled;
+    private final ConcurrentMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer exclusiveWait;
+    private ExecutorService executor;
+
+    public ElevatorMailboxes(FleetRegistry fleetRegistry, MailboxProperties properties, MeterRegistry meterRegistry) {
+        this.fleetRegistry = fleetRegistry;
+        this.enabled = properties.isEnabled();
+        this.exclusiveWait = Timer.builder("elevator.mailbox.exclusive.wait")
+                .description("Time a multi-elevator operation waited for the mailboxes of its elevators to pause")
+                .register(meterRegistry);
+        Gauge.builder("elevator.mailbox.queued", queued, AtomicInteger::get)
+                .description("Elevator mutations waiting in mailboxes")
+                .register(meterRegistry);
+        if (enabled) {
+            int threads = properties.getParallelism() > 0
+                    ? properties.getParallelism() : Runtime.getRuntime().availableProcessors();
+            AtomicInteger sequence = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "elevator-mailbox-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 在电梯的信箱上执行并等待结果；关闭时、已在该电梯信箱或已独占该电梯时直接执行。
+    // 状态表中没有的电梯不建信箱，任务在调用线程上执行（通常随即报告电梯不存在）
+    public <T> T call(Long elevatorId, Supplier<T> task) {
+        Mailbox current = CURRENT.get();
+        Barrier held = EXCLUSIVE.get();
+        if (!enabled || (held != null && held.covers(elevatorId))
+                || (current != null && current.elevatorId.equals(elevatorId))
+                || !fleetRegistry.find(elevatorId).isPresent()) {
+            return task.get();
+        }
+        // 独占期间等待其他电梯的信箱可能与另一个独占操作互相等待
+        if (held != null) {
+            throw new IllegalStateException("Operation holding elevators " + held.scope
+                    + " must not wait for the mailbox of elevator " + elevatorId);
+        }
+        if (current != null) {
+            throw new IllegalStateException("Elevator " + current.elevatorId
+                    + " must not wait for the mailbox of elevator " + elevatorId);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mailboxFor(elevatorId).enqueue(new Envelope() {
+            @Override
+            public void run() {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void cancel() {
+                result.completeExceptionally(new IllegalStateException("Elevator mailbox is shutting down"));
+            }
+        });
+        return join(result);
+    }
+
+    // 独占执行涉及多部电梯的操作：等这些电梯的信箱处理完之前的消息后暂停，执行完再恢复；
+    // 已独占这些电梯时直接执行
+    public <T> T exclusive(Collection<Long> elevatorIds, Supplier<T> task) {
+        Barrier held = EXCLUSIVE.get();
+        if (!enabled || (held != null && held.scope.containsAll(elevatorIds))) {
+            return task.get();
+        }
+        if (held != null) {
+            throw new IllegalStateException("Operation holding elevators " + held.scope
+                    + " must not wait for elevators " + elevatorIds);
+        }
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("Elevator " + CURRENT.get().elevatorId
+                    + " must not wait for a multi-elevator operation");
+        }
+
+        long start = System.nanoTime();
+        Barrier barrier = new Barrier(new LinkedHashSet<>(elevatorIds));
+        // 按电梯编号顺序锁住涉及的信箱后再放入屏障：涉及同一电梯的屏障在各信箱中的先后顺序一致，多个独占操作不会互相等待；
+        // 没有共同电梯的独占操作（如不同电梯组）不争用同一把锁
+        List<Mailbox> targets = new ArrayList<>(barrier.scope.size());
+        new TreeSet<>(barrier.scope).forEach(id -> targets.add(mailboxFor(id)));
+        targets.forEach(mailbox -> mailbox.barrierLock.lock());
+        try {
+            targets.forEach(mailbox -> mailbox.enqueue(barrier.expect()));
+        } finally {
+            targets.forEach(mailbox -> mailbox.barrierLock.unlock());
+        }
+        try {
+            barrier.awaitArrivals();
+            exclusiveWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            EXCLUSIVE.set(barrier);
+            return task.get();
+        } finally {
+            EXCLUSIVE.remove();
+            barrier.release().forEach(Mailbox::resume);
+        }
+    }
+
+    // 屏障总是放入它涉及的每部电梯的信箱（必要时新建），新建的信箱不会错过屏障
+    private Mailbox mailboxFor(Long elevatorId) {
+        return mailboxes.computeIfAbsent(elevatorId, Mailbox::new);
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for elevator mailbox", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // 关闭时尚未执行的消息以异常结束，等待中的调用方不会一直挂起
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        for (Mailbox mailbox : mailboxes.values()) {
+            Envelope envelope;
+            while ((envelope = mailbox.queue.poll()) != null) {
+                queued.decrementAndGet();
+                envelope.cancel();
+            }
+        }
+    }
+
+    private interface Envelope {
+        void run();
+
+        void cancel();
+    }
+
+    private final class Mailbox implements Runnable {
+        private final Long elevatorId;
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        // 只在放入屏障时持有，普通消息入队不加锁
+        private final ReentrantLock barrierLock = new ReentrantLock();
+        // 已交给线程池或停在屏障处时为 true，保证同一时刻最多一个线程处理该信箱
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(Long elevatorId) {
+            this.elevatorId = elevatorId;
+        }
+
+        void enqueue(Envelope envelope) {
+            queued.incrementAndGet();
+            queue.add(envelope);
+            trySchedule();
+        }
+
+        void trySchedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        void resume() {
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(this);
+            try {
+                for (int i = 0; i < THROUGHPUT; i++) {
+                    Envelope envelope = queue.poll();
+                    if (envelope == null) {
+                        break;
+                    }
+                    queued.decrementAndGet();
+                    if (envelope instanceof Arrival && ((Arrival) envelope).park(this)) {
+                        // 停在屏障处，保持 scheduled，由独占操作结束后恢复
+                        return;
+                    }
+                    envelope.run();
+                }
+            } finally {
+                CURRENT.remove();
+            }
+            scheduled.set(false);
+            // 放弃处理权之后才到达的消息由这里补上调度
+            if (!queue.isEmpty()) {
+                trySchedule();
+            }
+        }
+    }
+
+    private static final class Barrier {
+        private final Set<Long> scope;
+        private int pending;
+        private boolean released;
+        private final List<Mailbox> parked = new ArrayList<>();
+
+        Barrier(Set<Long> scope) {
+            this.scope = scope;
+        }
+
+        boolean covers(Long elevatorId) {
+            return scope.contains(elevatorId);
+        }
+
+        synchronized Arrival expect() {
+            pending++;
+            return new Arrival(this);
+        }
+
+        // 信箱处理到屏障时调用；屏障已释放则不再停留
+        synchronized boolean park(Mailbox mailbox) {
+            pending--;
+            notifyAll();
+            if (released) {
+                return false;
+            }
+            parked.add(mailbox);
+            return true;
+        }
+
+        synchronized void arriveWithoutParking() {
+            pending--;
+            notifyAll();
+        }
+
+        synchronized void awaitArrivals() {
+            while (pending > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for elevator mailboxes", e);
+                }
+            }
+        }
+
+        synchronized List<Mailbox> release() {
+            released = true;
+            return parked;
+        }
+    }
+
+    private static final class Arrival implements Envelope {
+        private final Barrier barrier;
+
+        Arrival(Barrier barrier) {
+            this.barrier = barrier;
+        }
+
+        boolean park(Mailbox mailbox) {
+            return barrier.park(mailbox);
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void cancel() {
+            barrier.arriveWithoutParking();
+        }
+    }
+}
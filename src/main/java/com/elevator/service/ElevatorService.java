@@ -1,17 +1,35 @@
 package com.elevator.service;
 
+import com.elevator.dispatch.DispatchStrategy;
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.dispatch.JointAssignment;
 import com.elevator.entity.Elevator;
 import com.elevator.entity.Request;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.fleet.FleetRegistry;
+import com.elevator.fleet.OpenRequestIndex;
 import com.elevator.model.Direction;
+import com.elevator.model.HallCall;
 import com.elevator.model.State;
+import com.elevator.model.StepReport;
+import com.elevator.persistence.WriteBehindStore;
 import com.elevator.repository.ElevatorRepository;
 import com.elevator.repository.RequestRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,276 +37,681 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ElevatorService {
 
+    static final int MAX_TICKS_UNTIL_IDLE = 10_000;
+
     private final ElevatorRepository elevatorRepository;
     private final RequestRepository requestRepository;
+    private final FleetRegistry fleetRegistry;
+    private final OpenRequestIndex openRequestIndex;
+    private final ElevatorBanks banks;
+    private final ExecutorService stepExecutor;
+    private final WriteBehindStore writeBehindStore;
+    private final ElevatorMailboxes mailboxes;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetry optimisticRetry;
+    private final StepEngine stepEngine = new StepEngine();
+
+    // write-behind 刷写发现其他写入方先修改了电梯时，本副本的变化已被放弃，从数据库重新同步该电梯
+    @EventListener(ApplicationReadyEvent.class)
+    public void watchWriteBehindConflicts() {
+        writeBehindStore.addConflictListener(this::refreshElevator);
+    }
 
-    @Transactional
     public Elevator createElevator(int maxCapacity) {
+        return createElevator(maxCapacity, null);
+    }
+
+    // bank 为空时加入默认组
+    @Transactional
+    public Elevator createElevator(int maxCapacity, String bank) {
         Elevator elevator = new Elevator();
+        elevator.setBank(banks.resolve(bank));
         elevator.setMaxCapacity(maxCapacity);
         return elevatorRepository.save(elevator);
     }
 
-    @Transactional
+    // 在状态表上选好电梯后，到该电梯的信箱上写入：同一电梯的停靠点修改与步进按顺序执行，不会互相覆盖；
+    // 其他副本同时修改了该电梯时先从数据库同步该电梯，再从校验楼层、调度开始整个重试
     public Request createRequest(int originFloor, int destinationFloor) {
+        return createRequest(originFloor, destinationFloor, null);
+    }
+
+    // 只在呼叫所在电梯组内调度；不同组的呼叫读取各自的索引、写入各自电梯的信箱，彼此不竞争
+    public Request createRequest(int originFloor, int destinationFloor, String bank) {
+        return retrying("create-request", () -> {
+            Request request = newRequest(originFloor, destinationFloor, bank);
+            ElevatorSnapshot selected = selectElevator(request, null, Collections.emptyMap());
+            Long elevatorId = selected.getId();
+            return onElevator(elevatorId, () -> {
+                Elevator optimalElevator = findPlannedElevator(selected);
+                request.setElevator(optimalElevator);
+                // 关键修复：始终将起始楼层添加到电梯的停靠点集合，无论电梯当前在哪个楼层；
+                // 并入已有呼叫时停靠点已经存在，电梯无需写回
+                if (optimalElevator.getStops().addFloor(originFloor)) {
+                    saveElevator(optimalElevator); // 保存电梯的停靠点更新
+                }
+
+                Request saved = requestRepository.save(request);
+                openRequestIndex.register(saved);
+                fleetRegistry.incrementPending(elevatorId);
+                return saved;
+            });
+        });
+    }
+
+    // 批量创建请求：先在状态表上逐个调度，再只独占被选中电梯的信箱、在一个事务内写入，其他电梯的信箱照常处理；
+    // 请求和电梯最后各用一次 saveAll 写入，配合 ingest 配置中的池化主键和JDBC批处理，插入可以按批发送
+    public List<Request> createRequests(List<HallCall> calls) {
+        return createBatch("create-requests", calls, false);
+    }
+
+    // 同一时间窗内到达的呼叫一起调度：先对整批呼叫求联合最优指派，再与批量创建一样一次写入
+    public List<Request> createRequestsJointly(List<HallCall> calls) {
+        return createBatch("create-requests", calls, true);
+    }
+
+    private List<Request> createBatch(String operation, List<HallCall> calls, boolean joint) {
+        return retrying(operation, () -> {
+            List<Request> requests = new ArrayList<>(calls.size());
+            for (HallCall call : calls) {
+                requests.add(newRequest(call.getOriginFloor(), call.getDestinationFloor(), call.getBank()));
+            }
+            List<ElevatorSnapshot> plan = planBatch(requests, joint ? assignJointly(calls) : null);
+            Set<Long> elevatorIds = plan.stream().map(ElevatorSnapshot::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+            return onElevators(elevatorIds, () -> applyBatch(requests, plan));
+        });
+    }
+
+    // 逐个呼叫选定电梯；同一批次先前的呼叫加上的停靠点记在 planned 中，后续调度能够看到
+    private List<ElevatorSnapshot> planBatch(List<Request> requests, List<ElevatorSnapshot> preselected) {
+        Map<Long, ElevatorSnapshot> planned = new HashMap<>();
+        List<ElevatorSnapshot> plan = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            ElevatorSnapshot selected = selectElevator(request, preselected == null ? null : preselected.get(i), planned);
+            plan.add(selected);
+            planned.put(selected.getId(),
+                    planned.getOrDefault(selected.getId(), selected).withStop(request.getOriginFloor()));
+        }
+        return plan;
+    }
+
+    // 只加载被选中的电梯，不加行锁：计划是在独占之前做出的，电梯此后满载或被其他副本修改过时整批重新调度；
+    // 加载之后其他写入方才修改这些电梯时由提交时的版本检查发现，整批回滚后重试
+    private List<Request> applyBatch(List<Request> requests, List<ElevatorSnapshot> plan) {
+        Map<Long, Elevator> elevators = new LinkedHashMap<>();
+        Set<Long> assigned = new LinkedHashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            ElevatorSnapshot selected = plan.get(i);
+            Elevator elevator = elevators.computeIfAbsent(selected.getId(), id -> findPlannedElevator(selected));
+            request.setElevator(elevator);
+            if (elevator.getStops().addFloor(request.getOriginFloor())) {
+                assigned.add(elevator.getId());
+            }
+        }
+
+        List<Elevator> changed = assigned.stream().map(elevators::get).collect(Collectors.toList());
+        // 停靠点变化立即同步到状态表，不必等到事务刷写
+        changed.forEach(fleetRegistry::register);
+        saveElevators(changed);
+        List<Request> saved = requestRepository.saveAll(requests);
+        for (Request request : saved) {
+            openRequestIndex.register(request);
+            fleetRegistry.incrementPending(request.getElevator().getId());
+        }
+        log.debug("Created {} requests, {} elevators got new stops", saved.size(), assigned.size());
+        return saved;
+    }
+
+    // 按电梯组分别求联合指派，每组只用本组的电梯和调度策略，结果按原呼叫顺序返回
+    private List<ElevatorSnapshot> assignJointly(List<HallCall> calls) {
+        Map<String, List<Integer>> byBank = new LinkedHashMap<>();
+        for (int i = 0; i < calls.size(); i++) {
+            byBank.computeIfAbsent(banks.resolve(calls.get(i).getBank()), bank -> new ArrayList<>()).add(i);
+        }
+        ElevatorSnapshot[] selected = new ElevatorSnapshot[calls.size()];
+        byBank.forEach((bank, indexes) -> {
+            List<ElevatorSnapshot> fleet = fleetRegistry.getElevators(bank);
+            fleet.sort(Comparator.comparing(ElevatorSnapshot::getId));
+            List<HallCall> bankCalls = indexes.stream().map(calls::get).collect(Collectors.toList());
+            List<ElevatorSnapshot> assigned = JointAssignment.assign(banks.strategyFor(bank), fleet,
+                    fleetRegistry::getPendingCount, bankCalls);
+            for (int i = 0; i < indexes.size(); i++) {
+                selected[indexes.get(i)] = assigned.get(i);
+            }
+        });
+        return Arrays.asList(selected);
+    }
+
+    // 调度时所依据的快照已过时：按版本冲突处理，由重试先同步该电梯再重新调度。
+    // 在本副本的信箱中排队期间被推进过不算过时，调度本来就只依据选择时的状态
+    private Elevator findPlannedElevator(ElevatorSnapshot selected) {
+        Elevator elevator = findCurrentElevator(selected.getId());
+        if (!selected.isFull() && elevator.getCurrentLoad() >= elevator.getMaxCapacity()) {
+            throw new ObjectOptimisticLockingFailureException(Elevator.class, selected.getId());
+        }
+        return elevator;
+    }
+
+    // 楼层按呼叫所在电梯组的楼层范围校验
+    private Request newRequest(int originFloor, int destinationFloor, String bank) {
+        String resolved = banks.resolve(bank);
+        banks.topologyFor(resolved).requireFloor(originFloor);
+        banks.topologyFor(resolved).requireFloor(destinationFloor);
+
         Request request = new Request();
+        request.setBank(resolved);
         request.setOriginFloor(originFloor);
         request.setDestinationFloor(destinationFloor);
         request.setDirection(destinationFloor > originFloor ? Direction.UP : Direction.DOWN);
+        return request;
+    }
 
-        Elevator optimalElevator = findOptimalElevator(request);
-        request.setElevator(optimalElevator);
+    // 同楼层同方向已有等待的呼叫时直接并入，不再调度；preselected 为联合指派预先选好的电梯，为 null 时按常规调度
+    private ElevatorSnapshot selectElevator(Request request, ElevatorSnapshot preselected,
+                                            Map<Long, ElevatorSnapshot> planned) {
+        Optional<ElevatorSnapshot> coalesced = findCoalescingElevator(request);
+        return coalesced.isPresent() ? coalesced.get()
+                : preselected != null ? preselected : findOptimalElevator(request, planned);
+    }
 
-        // 关键修复：始终将起始楼层添加到电梯的停靠点集合，无论电梯当前在哪个楼层
-        optimalElevator.getStops().add(originFloor);
-        elevatorRepository.save(optimalElevator); // 保存电梯的停靠点更新
+    // 同楼层同方向的呼叫按钮只需一部电梯响应：已有乘客在等待且电梯未满载时复用该电梯
+    private Optional<ElevatorSnapshot> findCoalescingElevator(Request request) {
+        int originFloor = request.getOriginFloor();
+        Direction direction = request.getDirection();
+        Optional<ElevatorSnapshot> elevator = openRequestIndex.findWaitingElevator(request.getBank(), originFloor, direction)
+                .flatMap(fleetRegistry::find)
+                .filter(snapshot -> !snapshot.isFull());
+        elevator.ifPresent(snapshot -> log.debug("Coalesced hall call at floor {} {} onto elevator {}",
+                originFloor, direction, snapshot.getId()));
+        return elevator;
+    }
 
-        return requestRepository.save(request);
+    public ElevatorSnapshot findOptimalElevator(Request request) {
+        return findOptimalElevator(request, Collections.emptyMap());
     }
 
-    public Elevator findOptimalElevator(Request request) {
-        List<Elevator> elevators = elevatorRepository.findAll();
+    // planned 中的快照代替状态表中的同一部电梯，带上本批次已分配但尚未写入的停靠点
+    private ElevatorSnapshot findOptimalElevator(Request request, Map<Long, ElevatorSnapshot> planned) {
+        int requestFloor = request.getOriginFloor();
+        log.debug("Finding optimal elevator for request: origin={}, dest={}",
+                  requestFloor, request.getDestinationFloor());
+
+        // 按楼层距离由近到远访问本组的索引，策略给出的成本下界超过当前最优成本后其余电梯不可能更优
+        Direction requestDirection = request.getDirection();
+        String bank = request.getBank();
+        DispatchStrategy dispatchStrategy = banks.strategyFor(bank);
+        Selection selection = new Selection();
+        fleetRegistry.visitByDistance(bank, requestFloor, (current, distance) -> {
+            if (selection.elevator != null && dispatchStrategy.lowerBound(distance) > selection.cost) {
+                return false;
+            }
+            ElevatorSnapshot elevator = planned.getOrDefault(current.getId(), current);
+            int pendingRequests = fleetRegistry.getPendingCount(elevator.getId());
+            selection.offer(elevator, dispatchStrategy.cost(elevator, requestFloor, requestDirection, pendingRequests));
+            return true;
+        });
+
+        // 索引只收录未满载的电梯；本组全部满载时与原先一样选择编号最小的电梯
+        if (selection.elevator == null) {
+            fleetRegistry.getElevators(bank).forEach(elevator ->
+                    selection.offer(planned.getOrDefault(elevator.getId(), elevator), Integer.MAX_VALUE));
+        }
+        if (selection.elevator == null) {
+            throw new RuntimeException("No elevators available");
+        }
+
+        log.info("Selected elevator: id={}, currentFloor={}, cost={}",
+                 selection.elevator.getId(), selection.elevator.getCurrentFloor(), selection.cost);
 
-        log.info("Finding optimal elevator for request: origin={}, dest={}",
-                 request.getOriginFloor(), request.getDestinationFloor());
+        return selection.elevator;
+    }
 
-        Elevator selected = elevators.stream()
-                .min(Comparator.comparingInt(elevator -> calculateCost(elevator, request)))
-                .orElseThrow(() -> new RuntimeException("No elevators available"));
+    private static final class Selection {
+        private ElevatorSnapshot elevator;
+        private int cost = Integer.MAX_VALUE;
 
-        log.info("Selected elevator: id={}, currentFloor={}, cost={}",
-                 selected.getId(), selected.getCurrentFloor(),
-                 calculateCost(selected, request));
+        void offer(ElevatorSnapshot candidate, int candidateCost) {
+            if (elevator == null || candidateCost < cost
+                    || (candidateCost == cost && candidate.getId() < elevator.getId())) {
+                elevator = candidate;
+                cost = candidateCost;
+            }
+        }
+    }
 
-        return selected;
+    public void processNextStep(Long elevatorId) {
+        advance(elevatorId, 1);
+    }
+
+    // 推进到电梯空闲为止；一轮LOOK扫描所需步数不超过停靠点数的两倍，上限仅防止数据异常时死循环
+    public StepReport advanceUntilIdle(Long elevatorId) {
+        return advance(elevatorId, MAX_TICKS_UNTIL_IDLE);
+    }
+
+    // 在电梯信箱上、一个事务内推进电梯最多ticks步：每次到站只按索引加载该楼层涉及的请求，结束后一次性保存电梯和发生变化的请求
+    public StepReport advance(Long elevatorId, int ticks) {
+        requirePositiveTicks(ticks);
+        return retrying("advance", () -> onElevator(elevatorId, () -> advanceElevator(elevatorId, ticks)));
     }
 
-    private int calculateCost(Elevator elevator, Request request) {
-        // 如果电梯已满，返回最大成本
-        if (elevator.getCurrentLoad() >= elevator.getMaxCapacity()) {
-            log.info("Elevator {} is full, cost=MAX", elevator.getId());
-            return Integer.MAX_VALUE;
+    private StepReport advanceElevator(Long elevatorId, int ticks) {
+        Elevator elevator = findCurrentElevator(elevatorId);
+
+        // 使用LOOK算法处理请求
+        StepEngine.StepResult result = stepEngine.advance(elevator, new IndexedFloorRequests(elevatorId), ticks);
+
+        if (!result.getChangedRequests().isEmpty()) {
+            saveRequests(result.getChangedRequestList());
         }
+        saveElevator(elevator);
+        fleetRegistry.decrementPending(elevatorId, result.getCompleted());
 
-        int currentFloor = elevator.getCurrentFloor();
-        Direction currentDirection = elevator.getDirection();
-        int requestFloor = request.getOriginFloor();
+        log.debug("Advanced elevator {} by {} ticks to floor {}, {} requests completed",
+                  elevatorId, result.getTicks(), elevator.getCurrentFloor(), result.getCompleted());
+        return toReport(elevator, result);
+    }
 
-        log.info("Calculating cost - elevator: {}, currentFloor: {}, direction: {}, requestFloor: {}",
-                 elevator.getId(), currentFloor, currentDirection, requestFloor);
+    // 全楼推进ticks步：每一步先用一次查询取回各电梯当前楼层涉及的请求，再在有界线程池上并行推进，最后批量写回。
+    // 先同步其他副本修改过的电梯，再只独占有停靠点、未完成请求或尚未回到空闲的电梯，
+    // 其余电梯推进后不会变化，直接按状态表报告，它们的信箱照常处理
+    public List<StepReport> advanceAll(int ticks) {
+        requirePositiveTicks(ticks);
+        return retrying("advance-all", () -> {
+            refreshStaleElevators();
+            return advanceResting(fleetRegistry.getElevators(), ticks);
+        });
+    }
+
+    // 只推进一个电梯组，仿真时钟按组推进，各组只同步和独占本组的电梯
+    public List<StepReport> advanceBank(String bank, int ticks) {
+        requirePositiveTicks(ticks);
+        String resolved = banks.resolve(bank);
+        return retrying("advance-bank", () -> {
+            refreshStaleElevators(resolved);
+            return advanceResting(fleetRegistry.getElevators(resolved), ticks);
+        });
+    }
 
-        // 电梯空闲状态
-        if (currentDirection == Direction.IDLE) {
-            int cost = Math.abs(currentFloor - requestFloor);
-            // 添加负载均衡因子
-            int pendingRequests = requestRepository.findByElevatorIdAndCompletedFalse(elevator.getId()).size();
-            cost += pendingRequests * 2; // 每个待处理请求增加2的成本
-            log.info("IDLE state, cost: {}, pending requests: {}", cost, pendingRequests);
-            return cost;
+    private List<StepReport> advanceResting(Collection<ElevatorSnapshot> elevators, int ticks) {
+        Map<Long, StepReport> reports = new TreeMap<>();
+        Set<Long> active = new LinkedHashSet<>();
+        for (ElevatorSnapshot elevator : elevators) {
+            if (isResting(elevator)) {
+                reports.put(elevator.getId(), new StepReport(elevator.getId(), 0, 0, 0,
+                        elevator.getCurrentFloor(), elevator.getDirection(), elevator.getState()));
+            } else {
+                active.add(elevator.getId());
+            }
         }
+        if (!active.isEmpty()) {
+            onElevators(active, () -> advanceFleet(active, ticks))
+                    .forEach(report -> reports.put(report.getElevatorId(), report));
+        }
+        return new ArrayList<>(reports.values());
+    }
 
-        // 同方向
-        if ((currentDirection == Direction.UP && request.getDirection() == Direction.UP && requestFloor >= currentFloor) ||
-            (currentDirection == Direction.DOWN && request.getDirection() == Direction.DOWN && requestFloor <= currentFloor)) {
-            int cost = Math.abs(currentFloor - requestFloor);
-            log.info("Same direction, cost: {}", cost);
-            return cost;
+    private boolean isResting(ElevatorSnapshot elevator) {
+        return elevator.getStops().length == 0 && openRequestIndex.openCount(elevator.getId()) == 0
+                && elevator.getDirection() == Direction.IDLE && elevator.getState() == State.IDLE;
+    }
+
+    private List<StepReport> advanceFleet(Collection<Long> elevatorIds, int ticks) {
+        List<FleetStep> fleet = new ArrayList<>();
+        findElevators(elevatorIds).forEach(elevator -> fleet.add(new FleetStep(requireCurrent(elevator))));
+
+        Map<Long, Request> loaded = new HashMap<>();
+        for (int tick = 0; tick < ticks; tick++) {
+            List<FleetStep> active = new ArrayList<>();
+            List<Long> ids = new ArrayList<>();
+            for (FleetStep step : fleet) {
+                if (step.active) {
+                    active.add(step);
+                    ids.addAll(openRequestIndex.requestIdsAt(step.elevator.getId(), step.elevator.getCurrentFloor()));
+                }
+            }
+            if (active.isEmpty()) {
+                break;
+            }
+            loadRequests(ids, loaded);
+
+            // 工作线程只修改内存中的实体，不访问数据库；join 保证结果对当前线程可见
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[active.size()];
+            for (int i = 0; i < active.size(); i++) {
+                FleetStep step = active.get(i);
+                step.requests = new PreloadedFloorRequests(step.elevator, loaded);
+                futures[i] = CompletableFuture.runAsync(
+                        () -> step.active = stepEngine.step(step.elevator, step.requests, step.result), stepExecutor);
+            }
+            CompletableFuture.allOf(futures).join();
+            active.forEach(step -> step.requests.changedRequests.forEach(openRequestIndex::register));
         }
 
-        // 反方向或需要绕行
-        int cost;
-        if (currentDirection == Direction.UP) {
-            cost = (10 - currentFloor) + (10 - requestFloor); // 假设最高10层
-            log.info("UP direction, need to turn around, cost: {}", cost);
-        } else {
-            cost = (currentFloor - 1) + (requestFloor - 1); // 假设最低1层
-            log.info("DOWN direction, need to turn around, cost: {}", cost);
+        Set<Request> changedRequests = new LinkedHashSet<>();
+        List<Elevator> elevators = new ArrayList<>(fleet.size());
+        List<StepReport> reports = new ArrayList<>(fleet.size());
+        int completed = 0;
+        for (FleetStep step : fleet) {
+            changedRequests.addAll(step.result.getChangedRequests());
+            fleetRegistry.decrementPending(step.elevator.getId(), step.result.getCompleted());
+            completed += step.result.getCompleted();
+            elevators.add(step.elevator);
+            reports.add(toReport(step.elevator, step.result));
         }
-        return cost;
-    }
 
-    @Transactional
-    public void processNextStep(Long elevatorId) {
-        Elevator elevator = elevatorRepository.findById(elevatorId)
-                .orElseThrow(() -> new RuntimeException("Elevator not found"));
+        if (!changedRequests.isEmpty()) {
+            saveRequests(changedRequests);
+        }
+        saveElevators(elevators);
 
-        List<Request> pendingRequests = requestRepository.findByElevatorIdAndCompletedFalse(elevatorId);
+        log.debug("Advanced {} elevators by up to {} ticks, {} requests completed",
+                  elevators.size(), ticks, completed);
+        return reports;
+    }
 
-        if (pendingRequests.isEmpty()) {
-            elevator.setDirection(Direction.IDLE);
-            elevator.setState(State.IDLE);
-            elevatorRepository.save(elevator);
-            return;
+    // 一次推进中同一请求只加载一次，之后复用同一个对象，保证前几步的修改对后续步骤可见
+    private List<Request> loadRequests(List<Long> requestIds, Map<Long, Request> loaded) {
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requestIds) {
+            if (!loaded.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            findRequests(missing).forEach(request -> loaded.put(request.getId(), request));
+        }
+        List<Request> requests = new ArrayList<>(requestIds.size());
+        for (Long id : requestIds) {
+            Request request = loaded.get(id);
+            if (request != null) {
+                requests.add(request);
+            }
         }
+        return requests;
+    }
 
-        // 使用LOOK算法处理请求
-        processLookAlgorithm(elevator, pendingRequests);
+    // 以下读写在 write-behind 模式下走内存状态，否则直接读写数据库
+    private Elevator findElevator(Long elevatorId) {
+        Optional<Elevator> elevator = writeBehindStore.isEnabled()
+                ? writeBehindStore.findElevator(elevatorId) : elevatorRepository.findById(elevatorId);
+        return elevator.orElseThrow(() -> new RuntimeException("Elevator not found"));
     }
 
-    private void processLookAlgorithm(Elevator elevator, List<Request> requests) {
-        int currentFloor = elevator.getCurrentFloor();
-        Direction direction = elevator.getDirection();
+    private Elevator findCurrentElevator(Long elevatorId) {
+        return requireCurrent(findElevator(elevatorId));
+    }
+
+    // 写穿模式下状态表和请求索引只反映本副本提交的修改：数据库中的版本更新说明其他副本修改过该电梯，
+    // 本副本对它的停靠点和未完成请求的认识已过时，不能在此基础上修改。write-behind 模式以内存为准，要求每部电梯只有一个写入方
+    private Elevator requireCurrent(Elevator elevator) {
+        if (!writeBehindStore.isEnabled() && isStale(elevator)) {
+            throw new ObjectOptimisticLockingFailureException(Elevator.class, elevator.getId());
+        }
+        return elevator;
+    }
 
-        log.info("Processing LOOK algorithm - Elevator: {}, Current floor: {}, Direction: {}, Pending requests: {}",
-                 elevator.getId(), currentFloor, direction, requests.size());
+    private boolean isStale(Elevator elevator) {
+        return fleetRegistry.find(elevator.getId())
+                .map(snapshot -> snapshot.getRevision() < elevator.getRevision())
+                .orElse(true);
+    }
 
-        // 直接使用电梯的停靠点集合
-        Set<Integer> stops = new HashSet<>(elevator.getStops());
-        log.info("All stops from elevator: {}", stops);
+    // 版本冲突后、重试之前调用：能确定冲突的电梯时只同步它，否则（如批量更新只报告行数）同步所有落后于数据库的电梯
+    private void resolveConflict(OptimisticLockingFailureException conflict) {
+        Long elevatorId = conflictingElevator(conflict);
+        if (elevatorId != null) {
+            refreshElevator(elevatorId);
+        } else {
+            refreshStaleElevators();
+        }
+    }
 
-        // 根据当前方向确定下一个停靠楼层
-        Optional<Integer> nextStop = findNextStop(currentFloor, direction, stops);
+    private static Long conflictingElevator(OptimisticLockingFailureException conflict) {
+        if (conflict instanceof ObjectOptimisticLockingFailureException) {
+            ObjectOptimisticLockingFailureException failure = (ObjectOptimisticLockingFailureException) conflict;
+            if (Elevator.class.getName().equals(failure.getPersistentClassName())
+                    && failure.getIdentifier() instanceof Long) {
+                return (Long) failure.getIdentifier();
+            }
+        }
+        return null;
+    }
 
-        log.info("Next stop: {}", nextStop);
+    private void refreshStaleElevators() {
+        if (!writeBehindStore.isEnabled()) {
+            refreshStale(elevatorRepository.findAll());
+        }
+    }
 
-        if (nextStop.isPresent()) {
-            int targetFloor = nextStop.get();
+    private void refreshStaleElevators(String bank) {
+        if (!writeBehindStore.isEnabled()) {
+            refreshStale(elevatorRepository.findByBank(bank));
+        }
+    }
 
-            // 如果方向是IDLE，根据目标楼层设置方向
-            if (direction == Direction.IDLE && targetFloor != currentFloor) {
-                direction = targetFloor > currentFloor ? Direction.UP : Direction.DOWN;
-                elevator.setDirection(direction);
-                log.info("Setting initial direction to: {}", direction);
+    private void refreshStale(List<Elevator> elevators) {
+        for (Elevator elevator : elevators) {
+            if (isStale(elevator)) {
+                refreshElevator(elevator.getId());
             }
+        }
+    }
 
-            if (targetFloor == currentFloor) {
-                // 到达目标楼层
-                log.info("Arrived at target floor: {}", currentFloor);
-                elevator.setState(State.STOPPED);
-                openDoor(elevator);
-                handleFloorArrival(elevator, currentFloor);
-
-                // 关键修复：处理完当前楼层后，如果有剩余停靠点，继续处理
-                if (!elevator.getStops().isEmpty()) {
-                    log.info("Still have stops remaining: {}, continuing processing", elevator.getStops());
-                    // 递归调用继续处理下一个停靠点
-                    processLookAlgorithm(elevator, requests);
-                    return;
-                }
-            } else {
-                // 移动电梯
-                log.info("Moving elevator from {} to {}", currentFloor, targetFloor);
-                elevator.setState(State.MOVING);
-                elevator.setDirection(targetFloor > currentFloor ? Direction.UP : Direction.DOWN);
-                elevator.setCurrentFloor(targetFloor);
+    // 在电梯的信箱上、独立事务中按数据库重建该电梯的快照、未完成请求索引和计数，其他副本分配或完成的请求由此生效
+    private void refreshElevator(Long elevatorId) {
+        mailboxes.call(elevatorId, () -> transactionTemplate.execute(status -> {
+            Optional<Elevator> elevator = writeBehindStore.isEnabled()
+                    ? writeBehindStore.findElevator(elevatorId) : elevatorRepository.findById(elevatorId);
+            if (!elevator.isPresent()) {
+                return null;
             }
-        } else {
-            // 没有停靠点，设置为空闲
-            log.info("No stops available, setting to IDLE");
-            elevator.setDirection(Direction.IDLE);
-            elevator.setState(State.IDLE);
+            List<Request> open = getPendingRequests(elevatorId);
+            fleetRegistry.register(elevator.get());
+            openRequestIndex.replaceElevator(elevatorId, open);
+            fleetRegistry.resetPending(elevatorId, open.size());
+            log.info("Refreshed elevator {} from the database at revision {}, {} open requests",
+                     elevatorId, elevator.get().getRevision(), open.size());
+            return null;
+        }));
+    }
+
+    private List<Elevator> findElevators(Collection<Long> elevatorIds) {
+        if (writeBehindStore.isEnabled()) {
+            return elevatorIds.stream().map(this::findElevator).collect(Collectors.toList());
         }
+        List<Elevator> elevators = elevatorRepository.findAllById(elevatorIds);
+        elevators.sort(Comparator.comparing(Elevator::getId));
+        return elevators;
+    }
 
-        elevatorRepository.save(elevator);
+    private List<Elevator> findAllElevators() {
+        return writeBehindStore.isEnabled() ? writeBehindStore.findAllElevators() : elevatorRepository.findAll();
     }
 
-    private Optional<Integer> findNextStop(int currentFloor, Direction direction, Set<Integer> stops) {
-        log.info("Finding next stop - currentFloor: {}, direction: {}, stops: {}", currentFloor, direction, stops);
+    private List<Request> findRequests(List<Long> requestIds) {
+        return writeBehindStore.isEnabled()
+                ? writeBehindStore.findRequests(requestIds) : requestRepository.findAllById(requestIds);
+    }
 
-        if (stops.isEmpty()) {
-            log.info("No stops available");
-            return Optional.empty();
+    private void saveElevator(Elevator elevator) {
+        if (writeBehindStore.isEnabled()) {
+            writeBehindStore.stageElevators(Collections.singletonList(elevator));
+        } else {
+            elevatorRepository.save(elevator);
         }
+    }
 
-        // 如果方向是IDLE，选择最近的请求
-        if (direction == Direction.IDLE) {
-            Optional<Integer> nearest = stops.stream()
-                    .min(Comparator.comparingInt(floor -> Math.abs(floor - currentFloor)));
-            log.info("Direction is IDLE, choosing nearest stop: {}", nearest);
-            return nearest;
+    private void saveElevators(List<Elevator> elevators) {
+        if (writeBehindStore.isEnabled()) {
+            writeBehindStore.stageElevators(elevators);
+        } else {
+            elevatorRepository.saveAll(elevators);
         }
+    }
 
-        if (direction == Direction.UP) {
-            Optional<Integer> next = stops.stream()
-                    .filter(floor -> floor >= currentFloor)
-                    .min(Integer::compareTo);
-            if (next.isPresent()) {
-                log.info("Next stop UP: {}", next);
-                return next;
-            } else {
-                // 没有向上的停靠点，改变方向
-                Optional<Integer> downNext = stops.stream()
-                        .filter(floor -> floor <= currentFloor)
-                        .max(Integer::compareTo);
-                log.info("No more UP stops, changing to DOWN: {}", downNext);
-                return downNext;
-            }
-        } else if (direction == Direction.DOWN) {
-            Optional<Integer> next = stops.stream()
-                    .filter(floor -> floor <= currentFloor)
-                    .max(Integer::compareTo);
-            if (next.isPresent()) {
-                log.info("Next stop DOWN: {}", next);
-                return next;
-            } else {
-                // 没有向下的停靠点，改变方向
-                Optional<Integer> upNext = stops.stream()
-                        .filter(floor -> floor >= currentFloor)
-                        .min(Integer::compareTo);
-                log.info("No more DOWN stops, changing to UP: {}", upNext);
-                return upNext;
-            }
+    private void saveRequests(Collection<Request> requests) {
+        if (writeBehindStore.isEnabled()) {
+            writeBehindStore.stageRequests(requests);
+        } else {
+            requestRepository.saveAll(requests);
+        }
+    }
+
+    // 单部电梯的修改在它的信箱上执行，事务也在信箱线程上开启和提交；
+    // 调用方已在事务中时加入该事务、在调用线程上执行，因为信箱线程看不到调用方尚未提交的数据
+    private <T> T onElevator(Long elevatorId, Supplier<T> mutation) {
+        Supplier<T> transactional = () -> transactionTemplate.execute(status -> mutation.get());
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                ? transactional.get() : mailboxes.call(elevatorId, transactional);
+    }
+
+    // 涉及多部电梯的修改只暂停这些电梯的信箱后独占执行
+    private <T> T onElevators(Collection<Long> elevatorIds, Supplier<T> mutation) {
+        Supplier<T> transactional = () -> transactionTemplate.execute(status -> mutation.get());
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                ? transactional.get() : mailboxes.exclusive(elevatorIds, transactional);
+    }
+
+    // 在信箱之外重试：冲突后先同步涉及的电梯，每次重新校验、调度，再进入新选中电梯的信箱；
+    // 调用方已在事务中时冲突由调用方处理
+    private <T> T retrying(String operation, Supplier<T> attempt) {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                ? attempt.get() : optimisticRetry.execute(operation, attempt, this::resolveConflict);
+    }
+
+    private static void requirePositiveTicks(int ticks) {
+        if (ticks < 1) {
+            throw new IllegalArgumentException("ticks must be positive, got " + ticks);
         }
+    }
 
-        log.info("No valid direction, returning empty");
-        return Optional.empty();
+    private StepReport toReport(Elevator elevator, StepEngine.StepResult result) {
+        return new StepReport(elevator.getId(), result.getTicks(), result.getCompleted(),
+                openRequestIndex.openCount(elevator.getId()),
+                elevator.getCurrentFloor(), elevator.getDirection(), elevator.getState());
     }
 
-    private void openDoor(Elevator elevator) {
-        elevator.setState(State.DOOR_OPEN);
-        log.info("Elevator {} door opened at floor {}", elevator.getId(), elevator.getCurrentFloor());
+    // 单部电梯推进时按需加载到站楼层的请求，状态变化立即写回索引，下一步即可看到
+    private class IndexedFloorRequests implements FloorRequests {
+        private final Long elevatorId;
+        private final Map<Long, Request> loaded = new HashMap<>();
+
+        IndexedFloorRequests(Long elevatorId) {
+            this.elevatorId = elevatorId;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return openRequestIndex.openCount(elevatorId) == 0;
+        }
+
+        @Override
+        public Collection<Request> at(int floor) {
+            return loadRequests(openRequestIndex.requestIdsAt(elevatorId, floor), loaded);
+        }
+
+        @Override
+        public void changed(Request request) {
+            openRequestIndex.register(request);
+        }
     }
 
-    private void handleFloorArrival(Elevator elevator, int floor) {
-        List<Request> requests = requestRepository.findByElevatorIdAndCompletedFalse(elevator.getId());
+    private static class FleetStep {
+        private final Elevator elevator;
+        private final StepEngine.StepResult result = new StepEngine.StepResult();
+        private PreloadedFloorRequests requests;
+        // 某一步没有变化后电梯已空闲，后续步骤跳过
+        private volatile boolean active = true;
 
-        // 处理到达该楼层的请求
-        for (Request request : requests) {
-            if (request.getOriginFloor() == floor && !request.isPassengerPickedUp()) {
-                log.info("Passenger picked up at floor {} by elevator {}", floor, elevator.getId());
-                request.setPassengerPickedUp(true);
-                elevator.setCurrentLoad(elevator.getCurrentLoad() + 1);
+        FleetStep(Elevator elevator) {
+            this.elevator = elevator;
+        }
+    }
 
-                // 关键修复：只有当目的地不同时才添加到停靠点
-                if (request.getOriginFloor() != request.getDestinationFloor()) {
-                    elevator.getStops().add(request.getDestinationFloor());
-                    log.info("Added destination floor {} to stops after pickup", request.getDestinationFloor());
-                } else {
-                    // 同楼层请求，立即完成
-                    log.info("Same floor request, marking as completed: {} -> {}",
-                             request.getOriginFloor(), request.getDestinationFloor());
-                    request.setCompleted(true);
-                    request.setCompletedAt(new Date());
-                    elevator.setCurrentLoad(Math.max(0, elevator.getCurrentLoad() - 1));
+    // 全楼推进时每一步预先取回的当前楼层请求；工作线程中不写索引，变化由调用线程在 join 后写回
+    private class PreloadedFloorRequests implements FloorRequests {
+        private final boolean empty;
+        private final int floor;
+        private final List<Request> requests = new ArrayList<>();
+        private final List<Request> changedRequests = new ArrayList<>();
+
+        PreloadedFloorRequests(Elevator elevator, Map<Long, Request> loaded) {
+            this.empty = openRequestIndex.openCount(elevator.getId()) == 0;
+            this.floor = elevator.getCurrentFloor();
+            for (Long id : openRequestIndex.requestIdsAt(elevator.getId(), floor)) {
+                Request request = loaded.get(id);
+                if (request != null) {
+                    requests.add(request);
                 }
             }
+        }
 
-            if (request.getDestinationFloor() == floor && request.isPassengerPickedUp() && !request.isCompleted()) {
-                log.info("Passenger dropped off at floor {} by elevator {}", floor, elevator.getId());
-                request.setCompleted(true);
-                request.setCompletedAt(new Date());
-                elevator.setCurrentLoad(Math.max(0, elevator.getCurrentLoad() - 1));
-            }
+        @Override
+        public boolean isEmpty() {
+            return empty;
         }
 
-        // 从停靠点集合中移除已处理的当前楼层
-        elevator.getStops().remove(floor);
-        log.info("Removed floor {} from stops after processing", floor);
+        @Override
+        public Collection<Request> at(int floor) {
+            return floor == this.floor ? requests : Collections.emptyList();
+        }
 
-        requestRepository.saveAll(requests);
-        elevatorRepository.save(elevator);
+        @Override
+        public void changed(Request request) {
+            changedRequests.add(request);
+        }
     }
 
     public List<Elevator> getAllElevators() {
-        return elevatorRepository.findAll();
+        return findAllElevators();
     }
 
     public Elevator getElevator(Long id) {
-        return elevatorRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Elevator not found"));
+        return findElevator(id);
+    }
+
+    // 版本号都来自内存中的状态表，条件请求不需要查询数据库
+    public long getFleetVersion() {
+        return fleetRegistry.getFleetVersion();
+    }
+
+    public Optional<Long> findElevatorVersion(Long id) {
+        return fleetRegistry.getVersion(id);
+    }
+
+    // 只加载版本号大于 since 的电梯
+    public List<Elevator> getElevatorsChangedSince(long since) {
+        List<Long> ids = fleetRegistry.findChangedSince(since);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (writeBehindStore.isEnabled()) {
+            return ids.stream().map(this::findElevator).collect(Collectors.toList());
+        }
+        List<Elevator> elevators = elevatorRepository.findAllById(ids);
+        elevators.sort(Comparator.comparing(Elevator::getId));
+        return elevators;
     }
 
     public List<Request> getPendingRequests(Long elevatorId) {
-        return requestRepository.findByElevatorIdAndCompletedFalse(elevatorId);
+        List<Request> requests = requestRepository.findByElevatorIdAndCompletedFalse(elevatorId);
+        if (!writeBehindStore.isEnabled()) {
+            return requests;
+        }
+        // 已在内存中完成但尚未刷写的请求不再返回
+        List<Request> pending = writeBehindStore.overlay(requests);
+        pending.removeIf(Request::isCompleted);
+        return pending;
+    }
+
+    public int getPendingRequestCount(Long elevatorId) {
+        fleetRegistry.find(elevatorId)
+                .orElseThrow(() -> new RuntimeException("Elevator not found"));
+        return fleetRegistry.getPendingCount(elevatorId);
+    }
+
+    public Map<Long, Integer> getPendingRequestCounts() {
+        return fleetRegistry.getPendingCounts();
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.elevator.service;
+
+import com.elevator.entity.Request;
+
+import java.util.Collection;
+
+// 步进引擎看到的某部电梯的未完成请求，按楼层取出，避免每次到站扫描全部请求
+public interface FloorRequests {
+
+    // 电梯是否已没有未完成请求
+    boolean isEmpty();
+
+    // 在该楼层等待上车的请求，以及已上车且在该楼层下车的请求
+    Collection<Request> at(int floor);
+
+    // 引擎修改了请求状态（上车或完成）后回调
+    default void changed(Request request) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.elevator.service;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MailboxProperties.class)
+public class MailboxConfiguration {
+}
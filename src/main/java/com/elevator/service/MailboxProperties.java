@@ -0,0 +1,15 @@
+package com.elevator.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.mailbox")
+public class MailboxProperties {
+
+    // 关闭后所有修改在调用线程上执行，同一电梯的并发修改靠版本检查发现并重试
+    private boolean enabled = true;
+
+    // 处理各电梯信箱的线程数，<=0 时取CPU核数
+    private int parallelism = 0;
+}
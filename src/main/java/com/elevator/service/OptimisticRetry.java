@@ -0,0 +1,101 @@
+package com.elevator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// 乐观并发的有限重试：电梯行带 @Version，其他副本先提交了同一电梯时本次事务回滚，
+// 内存状态表和请求索引随回滚撤销本次的修改；它们只反映本副本提交的内容，由 onConflict 在重试前从数据库同步，
+// 重新执行的 attempt 应重新调度，而不是沿用上一次的选择。
+// attempt 必须自己开启并提交事务，调用方已在事务中时冲突只能抛给调用方
+@Component
+@Slf4j
+public class OptimisticRetry {
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public OptimisticRetry(OptimisticRetryProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getMaxAttempts() <= 0) {
+            throw new IllegalStateException("elevator.optimistic.max-attempts must be positive");
+        }
+        if (properties.getBackoffMillis() < 0) {
+            throw new IllegalStateException("elevator.optimistic.backoff-millis must not be negative");
+        }
+        this.maxAttempts = properties.getMaxAttempts();
+        this.backoffMillis = properties.getBackoffMillis();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> attempt,
+                         Consumer<OptimisticLockingFailureException> onConflict) {
+        Meters counters = meters.computeIfAbsent(operation, this::register);
+        for (int attempts = 1; ; attempts++) {
+            counters.attempts.increment();
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException e) {
+                counters.conflicts.increment();
+                if (attempts >= maxAttempts) {
+                    counters.exhausted.increment();
+                    log.warn("Gave up {} after {} version conflicts: {}", operation, attempts, e.getMessage());
+                    throw e;
+                }
+                log.debug("Version conflict in {}, retrying (attempt {})", operation, attempts + 1);
+                onConflict.accept(e);
+                backoff(attempts);
+            }
+        }
+    }
+
+    private void backoff(int attempts) {
+        if (backoffMillis == 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(backoffMillis * attempts + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying after a version conflict", e);
+        }
+    }
+
+    private Meters register(String operation) {
+        return new Meters(
+                Counter.builder("elevator.optimistic.attempts")
+                        .description("Transactions attempted under optimistic version checks")
+                        .tag("operation", operation)
+                        .register(meterRegistry),
+                Counter.builder("elevator.optimistic.conflicts")
+                        .description("Transactions rolled back because another writer updated the elevator first")
+                        .tag("operation", operation)
+                        .register(meterRegistry),
+                Counter.builder("elevator.optimistic.exhausted")
+                        .description("Operations that still conflicted after the last retry")
+                        .tag("operation", operation)
+                        .register(meterRegistry));
+    }
+
+    private static final class Meters {
+        private final Counter attempts;
+        private final Counter conflicts;
+        private final Counter exhausted;
+
+        Meters(Counter attempts, Counter conflicts, Counter exhausted) {
+            this.attempts = attempts;
+            this.conflicts = conflicts;
+            this.exhausted = exhausted;
+        }
+    }
+}
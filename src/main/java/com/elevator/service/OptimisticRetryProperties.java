@@ -0,0 +1,15 @@
+package com.elevator.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.optimistic")
+public class OptimisticRetryProperties {
+
+    // 一次修改最多执行的次数（含第一次），版本冲突超过该次数后把异常抛给调用方
+    private int maxAttempts = 3;
+
+    // 重试前随机等待的上限，第 n 次重试为 n 倍，错开同时冲突的副本
+    private long backoffMillis = 10;
+}
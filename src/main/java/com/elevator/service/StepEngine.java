@@ -0,0 +1,164 @@
+package com.elevator.service;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.model.Direction;
+import com.elevator.model.State;
+import com.elevator.model.StopSet;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// 迭代式LOOK步进引擎：只修改传入的实体对象，不访问数据库，由调用方一次性持久化
+@Slf4j
+public class StepEngine {
+
+    // 推进电梯最多ticks步
+    // 某一步没有任何变化时电梯已空闲，之后的步骤也不会再有变化，提前结束
+    public StepResult advance(Elevator elevator, FloorRequests requests, int ticks) {
+        StepResult result = new StepResult();
+        for (int i = 0; i < ticks; i++) {
+            if (!step(elevator, requests, result)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // 执行一步，与原先单次 processNextStep 的语义一致；电梯状态发生变化时计入ticks并返回true
+    // 一步之内只会在电梯当前所在楼层上下客，因此只需要该楼层的请求
+    public boolean step(Elevator elevator, FloorRequests requests, StepResult result) {
+        boolean changed = doStep(elevator, requests, result);
+        if (changed) {
+            result.ticks++;
+        }
+        return changed;
+    }
+
+    private boolean doStep(Elevator elevator, FloorRequests requests, StepResult result) {
+        if (requests.isEmpty()) {
+            return becomeIdle(elevator);
+        }
+
+        StopSet stops = elevator.getStops();
+        while (true) {
+            int currentFloor = elevator.getCurrentFloor();
+            int targetFloor = findNextStop(currentFloor, elevator.getDirection(), stops);
+
+            if (targetFloor == StopSet.NONE) {
+                // 没有停靠点，设置为空闲
+                log.debug("Elevator {} has no stops, setting to IDLE", elevator.getId());
+                return becomeIdle(elevator);
+            }
+
+            if (targetFloor != currentFloor) {
+                // 移动电梯
+                log.debug("Moving elevator {} from {} to {}", elevator.getId(), currentFloor, targetFloor);
+                elevator.setState(State.MOVING);
+                elevator.setDirection(targetFloor > currentFloor ? Direction.UP : Direction.DOWN);
+                elevator.setCurrentFloor(targetFloor);
+                return true;
+            }
+
+            // 到达目标楼层，开门处理上下客；同一步内继续处理剩余停靠点
+            elevator.setState(State.DOOR_OPEN);
+            log.info("Elevator {} door opened at floor {}", elevator.getId(), currentFloor);
+            handleFloorArrival(elevator, currentFloor, requests, result);
+            if (stops.isEmpty()) {
+                return true;
+            }
+        }
+    }
+
+    private boolean becomeIdle(Elevator elevator) {
+        boolean changed = elevator.getDirection() != Direction.IDLE || elevator.getState() != State.IDLE;
+        elevator.setDirection(Direction.IDLE);
+        elevator.setState(State.IDLE);
+        return changed;
+    }
+
+    static int findNextStop(int currentFloor, Direction direction, StopSet stops) {
+        if (stops.isEmpty()) {
+            return StopSet.NONE;
+        }
+
+        // 如果方向是IDLE，选择最近的请求
+        if (direction == Direction.IDLE) {
+            return stops.nearest(currentFloor);
+        }
+
+        if (direction == Direction.UP) {
+            int next = stops.nextAtOrAbove(currentFloor);
+            // 没有向上的停靠点，改变方向
+            return next != StopSet.NONE ? next : stops.nextAtOrBelow(currentFloor);
+        } else if (direction == Direction.DOWN) {
+            int next = stops.nextAtOrBelow(currentFloor);
+            // 没有向下的停靠点，改变方向
+            return next != StopSet.NONE ? next : stops.nextAtOrAbove(currentFloor);
+        }
+
+        return StopSet.NONE;
+    }
+
+    private void handleFloorArrival(Elevator elevator, int floor, FloorRequests requests, StepResult result) {
+        // 只处理该楼层涉及的请求
+        for (Request request : requests.at(floor)) {
+            if (request.isCompleted()) {
+                continue;
+            }
+            if (request.getOriginFloor() == floor && !request.isPassengerPickedUp()) {
+                log.info("Passenger picked up at floor {} by elevator {}", floor, elevator.getId());
+                request.setPassengerPickedUp(true);
+                elevator.setCurrentLoad(elevator.getCurrentLoad() + 1);
+
+                // 关键修复：只有当目的地不同时才添加到停靠点
+                if (request.getOriginFloor() != request.getDestinationFloor()) {
+                    elevator.getStops().addFloor(request.getDestinationFloor());
+                } else {
+                    // 同楼层请求，立即完成
+                    complete(elevator, request, result);
+                }
+                changed(request, requests, result);
+                continue;
+            }
+
+            if (request.getDestinationFloor() == floor && request.isPassengerPickedUp()) {
+                log.info("Passenger dropped off at floor {} by elevator {}", floor, elevator.getId());
+                complete(elevator, request, result);
+                changed(request, requests, result);
+            }
+        }
+
+        // 从停靠点集合中移除已处理的当前楼层
+        elevator.getStops().removeFloor(floor);
+    }
+
+    private void changed(Request request, FloorRequests requests, StepResult result) {
+        result.changedRequests.add(request);
+        requests.changed(request);
+    }
+
+    private void complete(Elevator elevator, Request request, StepResult result) {
+        request.setCompleted(true);
+        request.setCompletedAt(new Date());
+        elevator.setCurrentLoad(Math.max(0, elevator.getCurrentLoad() - 1));
+        result.completed++;
+    }
+
+    @Getter
+    public static class StepResult {
+        private int ticks;
+        private int completed;
+        // 本次推进中状态发生变化的请求，只需持久化这些
+        private final Set<Request> changedRequests = new LinkedHashSet<>();
+
+        public List<Request> getChangedRequestList() {
+            return new ArrayList<>(changedRequests);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.elevator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Configuration
+public class StepExecutorConfiguration {
+
+    private ExecutorService stepExecutor;
+
+    // 全楼步进使用的有界线程池，parallelism<=0 时取CPU核数
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService stepExecutor(@Value("${elevator.step.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "elevator-step-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        stepExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+        return stepExecutor;
+    }
+
+    // 内嵌Tomcat在销毁bean之前就会停止并检查残留线程，所以在容器关闭事件里提前停掉线程池并等待工作线程退出
+    @EventListener(ContextClosedEvent.class)
+    public void stopStepExecutor() throws InterruptedException {
+        if (stepExecutor == null) {
+            return;
+        }
+        stepExecutor.shutdown();
+        if (!stepExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Step executor did not terminate within 5s, interrupting workers");
+            stepExecutor.shutdownNow();
+        }
+    }
+}
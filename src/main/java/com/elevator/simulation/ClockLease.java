@@ -0,0 +1,71 @@
+package com.elevator.simulation;
+
+import com.elevator.entity.SimulationLease;
+import com.elevator.repository.SimulationLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+// 仿真时钟的单主约束：每个电梯组一份租约，每个tick前在数据库中续约，只有持有租约的副本推进该组电梯，其他副本的该组时钟空转待命；
+// 持有方暂停或停止时主动让出，宕机时租约最多 lease-millis 后过期，由其他运行中的副本接管
+@Component
+@Slf4j
+public class ClockLease {
+
+    private final SimulationLeaseRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long leaseMillis;
+    private final String owner = System.getenv().getOrDefault("HOSTNAME", "local") + "-" + UUID.randomUUID();
+
+    public ClockLease(SimulationLeaseRepository repository, TransactionTemplate transactionTemplate,
+                      SimulationProperties properties) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.leaseMillis = properties.getLeaseMillis();
+    }
+
+    // 续约或接管已过期的租约；租约不存在时创建，多个副本同时创建只有一个成功
+    public boolean tryAcquire(String name) {
+        long now = System.currentTimeMillis();
+        try {
+            Boolean acquired = transactionTemplate.execute(status -> {
+                if (repository.renew(name, owner, now + leaseMillis, now) > 0) {
+                    return true;
+                }
+                if (repository.existsById(name)) {
+                    return false;
+                }
+                SimulationLease lease = new SimulationLease();
+                lease.setName(name);
+                lease.setOwner(owner);
+                lease.setExpiresAt(now + leaseMillis);
+                repository.saveAndFlush(lease);
+                return true;
+            });
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Simulation lease {} was created by another replica", name);
+            return false;
+        } catch (RuntimeException e) {
+            // 无法确认租约时按未持有处理，宁可少推进一次也不与其他副本同时推进
+            log.warn("Failed to renew simulation lease {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    // 主动让出租约，其他副本下一个tick即可接管
+    public void release(String name) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.release(name, owner));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release simulation lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
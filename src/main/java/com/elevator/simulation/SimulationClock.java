@@ -0,0 +1,235 @@
+package com.elevator.simulation;
+
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.service.ElevatorService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 楼宇内置仿真时钟：每个电梯组一个独立时钟，按固定周期推进本组电梯一步，各电梯的步进由 stepExecutor 并行执行。
+// tick 按固定节拍对齐，某个 tick 超时后错过的节拍直接丢弃并计数，不会连续补跑，一个组超时不影响其他组的节拍；
+// 多个副本都开启时钟时，每个组只有持有该组数据库租约的副本推进，不同的组可以由不同副本推进
+@Component
+@Slf4j
+public class SimulationClock {
+
+    static final String LEASE_PREFIX = "simulation:";
+
+    private final ElevatorService elevatorService;
+    private final ClockLease lease;
+    private final long tickMillis;
+    private final long tickNanos;
+    private final boolean autoStart;
+    private final Map<String, BankClock> clocks = new LinkedHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private boolean running;
+    // 每次恢复开始新的一轮调度，暂停前的一轮不会再排下一个 tick
+    private long generation;
+
+    public SimulationClock(ElevatorService elevatorService, ClockLease lease, ElevatorBanks banks,
+                           SimulationProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getTickMillis() <= 0) {
+            throw new IllegalStateException("elevator.simulation.tick-millis must be positive");
+        }
+        if (properties.getLeaseMillis() <= properties.getTickMillis()) {
+            throw new IllegalStateException("elevator.simulation.lease-millis must be longer than tick-millis");
+        }
+        this.elevatorService = elevatorService;
+        this.lease = lease;
+        this.tickMillis = properties.getTickMillis();
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.autoStart = properties.isEnabled();
+        for (String bank : banks.names()) {
+            clocks.put(bank, new BankClock(bank, meterRegistry));
+        }
+        Gauge.builder("elevator.simulation.running", this, clock -> clock.isRunning() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    static String leaseName(String bank) {
+        return LEASE_PREFIX + bank;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (autoStart) {
+            resume();
+        }
+    }
+
+    public synchronized SimulationStatus resume() {
+        if (!running) {
+            if (scheduler == null) {
+                AtomicInteger threads = new AtomicInteger();
+                scheduler = Executors.newScheduledThreadPool(clocks.size(), runnable -> {
+                    Thread thread = new Thread(runnable, "elevator-clock-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            running = true;
+            long round = ++generation;
+            long now = System.nanoTime();
+            for (BankClock clock : clocks.values()) {
+                clock.nextTickAt = now + tickNanos;
+                clock.schedule = scheduler.schedule(() -> runScheduled(clock, round), tickNanos, TimeUnit.NANOSECONDS);
+            }
+            log.info("Simulation clock started with a {} ms tick for banks {}", tickMillis, clocks.keySet());
+        }
+        return status();
+    }
+
+    // 暂停后正在执行的tick会正常完成；让出持有的租约，其他运行中的副本可以立即接管
+    public synchronized SimulationStatus pause() {
+        if (running) {
+            running = false;
+            clocks.values().forEach(clock -> {
+                clock.schedule.cancel(false);
+                clock.schedule = null;
+            });
+            log.info("Simulation clock paused after {} ticks", totalTicks());
+        }
+        for (BankClock clock : clocks.values()) {
+            if (clock.leader) {
+                clock.leader = false;
+                lease.release(leaseName(clock.bank));
+            }
+        }
+        return status();
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    // 各组合计；leaderBanks 为本副本持有租约、正在推进的组
+    public SimulationStatus status() {
+        long overruns = 0;
+        long skipped = 0;
+        long lastTickMillis = 0;
+        Set<String> leaderBanks = new TreeSet<>();
+        for (BankClock clock : clocks.values()) {
+            overruns += clock.overruns.get();
+            skipped += clock.skipped.get();
+            lastTickMillis = Math.max(lastTickMillis, clock.lastTickMillis);
+            if (clock.leader) {
+                leaderBanks.add(clock.bank);
+            }
+        }
+        return new SimulationStatus(isRunning(), !leaderBanks.isEmpty(), tickMillis, totalTicks(), overruns, skipped,
+                lastTickMillis, leaderBanks);
+    }
+
+    private long totalTicks() {
+        return clocks.values().stream().mapToLong(clock -> clock.ticks.get()).sum();
+    }
+
+    private void runScheduled(BankClock clock, long round) {
+        tick(clock);
+        synchronized (this) {
+            if (round != generation || !running) {
+                return;
+            }
+            // 下一个节拍已经过去时丢弃错过的节拍，对齐到下一个未来的节拍
+            long now = System.nanoTime();
+            clock.nextTickAt += tickNanos;
+            if (now > clock.nextTickAt) {
+                long missed = (now - clock.nextTickAt) / tickNanos + 1;
+                clock.nextTickAt += missed * tickNanos;
+                clock.skipped.addAndGet(missed);
+                clock.skippedCounter.increment(missed);
+            }
+            clock.schedule = scheduler.schedule(() -> runScheduled(clock, round), clock.nextTickAt - now,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void tick(String bank) {
+        tick(clocks.get(bank));
+    }
+
+    private void tick(BankClock clock) {
+        long start = System.nanoTime();
+        try {
+            clock.leader = lease.tryAcquire(leaseName(clock.bank));
+            if (!clock.leader) {
+                return;
+            }
+            elevatorService.advanceBank(clock.bank, 1);
+        } catch (RuntimeException e) {
+            // 异常不能抛出，否则后续的tick不会再排上
+            log.error("Simulation tick failed for bank {}", clock.bank, e);
+        }
+        long elapsed = System.nanoTime() - start;
+        clock.tickTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        clock.lastTickMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        clock.ticks.incrementAndGet();
+        if (elapsed > tickNanos) {
+            clock.overruns.incrementAndGet();
+            clock.overrunCounter.increment();
+            log.warn("Simulation tick for bank {} took {} ms, longer than the {} ms period",
+                     clock.bank, clock.lastTickMillis, tickMillis);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        pause();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // 一个电梯组的节拍、租约和计量，指标按 bank 标签区分
+    private static final class BankClock {
+        private final String bank;
+        private final Timer tickTimer;
+        private final Counter overrunCounter;
+        private final Counter skippedCounter;
+        private final AtomicLong ticks = new AtomicLong();
+        private final AtomicLong overruns = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile long lastTickMillis;
+        private volatile boolean leader;
+        private ScheduledFuture<?> schedule;
+        private long nextTickAt;
+
+        BankClock(String bank, MeterRegistry meterRegistry) {
+            this.bank = bank;
+            this.tickTimer = Timer.builder("elevator.simulation.tick")
+                    .description("Time spent advancing one elevator bank by one tick")
+                    .tag("bank", bank)
+                    .register(meterRegistry);
+            this.overrunCounter = Counter.builder("elevator.simulation.tick.overruns")
+                    .description("Ticks that took longer than the configured tick period")
+                    .tag("bank", bank)
+                    .register(meterRegistry);
+            this.skippedCounter = Counter.builder("elevator.simulation.tick.skipped")
+                    .description("Tick slots dropped because the previous tick overran them")
+                    .tag("bank", bank)
+                    .register(meterRegistry);
+            Gauge.builder("elevator.simulation.leader", this, clock -> clock.leader ? 1 : 0)
+                    .description("1 while this replica holds the simulation clock lease of the bank")
+                    .tag("bank", bank)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.elevator.simulation;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SimulationProperties.class)
+public class SimulationConfiguration {
+}
@@ -0,0 +1,19 @@
+package com.elevator.simulation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.simulation")
+public class SimulationProperties {
+
+    // 启动后是否自动运行内置时钟；关闭时仍可通过API手动恢复
+    private boolean enabled = false;
+
+    // 每个tick的周期，单位毫秒
+    private long tickMillis = 1000;
+
+    // 多副本共用数据库时时钟租约的有效期，只有持有租约的副本推进电梯；须大于tick周期，
+    // 持有方停止后其他副本最多等待这么久接管
+    private long leaseMillis = 5000;
+}
@@ -0,0 +1,18 @@
+package com.elevator.simulation;
+
+import lombok.Value;
+
+import java.util.Set;
+
+@Value
+public class SimulationStatus {
+    boolean running;
+    // 本副本是否持有任一电梯组的时钟租约，只有持有方推进该组电梯
+    boolean leader;
+    long tickMillis;
+    long ticks;
+    long overruns;
+    long skipped;
+    long lastTickMillis;
+    Set<String> leaderBanks;
+}
@@ -0,0 +1,91 @@
+package com.elevator.submission;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// 多生产者单消费者环形缓冲：槽位在创建时一次性分配并循环复用，生产者用 CAS 申请序号、写入槽位后发布，
+// 唯一的消费者按序号批量取走。申请和发布都不加锁，缓冲满时申请直接失败，由调用方决定拒绝还是重试
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] slots;
+    // 每个槽位最近一次发布的序号，与期望序号相等时说明数据已写完
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // 只由消费者写入
+    private volatile long consumed = -1;
+
+    MpscRingBuffer(int requestedCapacity, Supplier<E> slotFactory) {
+        if (requestedCapacity <= 0 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Ring buffer capacity out of range: " + requestedCapacity);
+        }
+        // 容量向上取到2的幂，序号对应槽位只需一次按位与
+        int size = 1;
+        while (size < requestedCapacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = slotFactory.get();
+            published.set(i, -1);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // 申请下一个序号；消费者还没取走一整圈之前的数据时返回 -1
+    long tryClaim() {
+        long current;
+        long next;
+        do {
+            current = claimed.get();
+            next = current + 1;
+            if (next - consumed > capacity) {
+                return -1;
+            }
+        } while (!claimed.compareAndSet(current, next));
+        return next;
+    }
+
+    @SuppressWarnings("unchecked")
+    E slot(long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    // 仅消费者调用：按序号取走最多 max 个已发布的槽位，handler 需要把数据复制出去，返回后槽位即交还给生产者
+    int drain(int max, Consumer<E> handler) {
+        long next = consumed + 1;
+        int drained = 0;
+        while (drained < max && published.get((int) next & mask) == next) {
+            handler.accept(slot(next));
+            next++;
+            drained++;
+        }
+        if (drained > 0) {
+            consumed = next - 1;
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        long next = consumed + 1;
+        return published.get((int) next & mask) != next;
+    }
+
+    // 已申请但尚未被取走的槽位数，包括正在写入的
+    int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+}
@@ -0,0 +1,224 @@
+package com.elevator.submission;
+
+import com.elevator.dispatch.BuildingTopology;
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.entity.Request;
+import com.elevator.model.HallCall;
+import com.elevator.model.RequestTicket;
+import com.elevator.model.TicketStatus;
+import com.elevator.service.ElevatorService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+// 异步提交：请求线程把呼叫发布到预分配的环形缓冲后立即返回凭据，唯一的调度线程按批取出，
+// 每批在一个事务内调度并写入，结果通过凭据查询或等待。调度逻辑只在一个线程上运行，请求线程之间只竞争一次 CAS
+@Component
+@Slf4j
+public class RequestSubmissionQueue {
+
+    // 缓冲为空时调度线程最长休眠时间，生产者发布后会立即唤醒它
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ElevatorService elevatorService;
+    private final ElevatorBanks banks;
+    private final int batchSize;
+    private final long ticketTtlMillis;
+
+    private final MpscRingBuffer<Slot> ring;
+    private final ConcurrentMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    // 已完成的凭据按完成顺序排列，过期清理时只需从队头弹出
+    private final Queue<Ticket> resolved = new ConcurrentLinkedQueue<>();
+
+    private final Counter rejectedCounter;
+    private final Timer queueTimer;
+    private final DistributionSummary batchSizes;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    public RequestSubmissionQueue(ElevatorService elevatorService, ElevatorBanks banks,
+                                  SubmissionProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getQueueCapacity() <= 0 || properties.getBatchSize() <= 0) {
+            throw new IllegalStateException("elevator.submission.queue-capacity and batch-size must be positive");
+        }
+        this.elevatorService = elevatorService;
+        this.banks = banks;
+        this.batchSize = properties.getBatchSize();
+        this.ticketTtlMillis = properties.getTicketTtlMillis();
+        this.ring = new MpscRingBuffer<>(properties.getQueueCapacity(), Slot::new);
+        this.rejectedCounter = Counter.builder("elevator.submission.rejected")
+                .description("Asynchronous submissions rejected because the queue was full")
+                .register(meterRegistry);
+        this.queueTimer = Timer.builder("elevator.submission.queued")
+                .description("Dispatch lag: time a submitted hall call waited in the ring buffer")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("elevator.submission.batch.size")
+                .description("Hall calls drained from the ring buffer in one dispatch")
+                .register(meterRegistry);
+        Gauge.builder("elevator.submission.queue.size", ring, MpscRingBuffer::size)
+                .description("Hall calls published to the ring buffer but not yet drained")
+                .register(meterRegistry);
+        this.dispatcher = new Thread(this::run, "elevator-submission");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // 楼层和电梯组在受理时校验，非法呼叫直接拒绝而不会进入队列；队列已满时抛出 RejectedExecutionException
+    public RequestTicket submit(HallCall call) {
+        BuildingTopology building = banks.topologyFor(call.getBank());
+        building.requireFloor(call.getOriginFloor());
+        building.requireFloor(call.getDestinationFloor());
+
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Request queue is full");
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), call);
+        tickets.put(ticket.id, ticket);
+        // 发布后调度线程随时可能完成凭据，返回发布前的排队状态
+        RequestTicket queued = ticket.state;
+        Slot slot = ring.slot(sequence);
+        slot.ticket = ticket;
+        slot.publishedAt = System.nanoTime();
+        ring.publish(sequence);
+        if (idle) {
+            LockSupport.unpark(dispatcher);
+        }
+        return queued;
+    }
+
+    public Optional<RequestTicket> find(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId)).map(ticket -> ticket.state);
+    }
+
+    // 凭据完成（分配或失败）时完成的 future
+    public Optional<CompletableFuture<RequestTicket>> completion(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId)).map(ticket -> ticket.result);
+    }
+
+    public int queueSize() {
+        return ring.size();
+    }
+
+    private void run() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (drain(batch) == 0) {
+                awaitPublish();
+                continue;
+            }
+            dispatch(batch);
+            batch.clear();
+            expireTickets();
+        }
+    }
+
+    // 把槽位中的数据复制出来后立即交还槽位，调度期间生产者可以继续发布
+    private int drain(List<Ticket> batch) {
+        long now = System.nanoTime();
+        return ring.drain(batchSize, slot -> {
+            queueTimer.record(now - slot.publishedAt, TimeUnit.NANOSECONDS);
+            batch.add(slot.ticket);
+            slot.ticket = null;
+        });
+    }
+
+    // 先声明将要休眠再检查缓冲：生产者发布后看到 idle 会唤醒调度线程，两边至少有一方看到对方的写入
+    private void awaitPublish() {
+        idle = true;
+        if (ring.isEmpty() && running) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        idle = false;
+    }
+
+    void dispatch(List<Ticket> batch) {
+        batchSizes.record(batch.size());
+        List<HallCall> calls = batch.stream().map(ticket -> ticket.call).collect(Collectors.toList());
+        try {
+            List<Request> created = elevatorService.createRequests(calls);
+            for (int i = 0; i < batch.size(); i++) {
+                Request request = created.get(i);
+                batch.get(i).resolve(TicketStatus.ASSIGNED, request.getId(), request.getElevator().getId(), null);
+            }
+            log.debug("Dispatched {} queued hall calls", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Dispatch of {} queued hall calls failed: {}", batch.size(), e.getMessage());
+            batch.forEach(ticket -> ticket.resolve(TicketStatus.FAILED, null, null, e.getMessage()));
+        }
+        resolved.addAll(batch);
+    }
+
+    private void expireTickets() {
+        long expiredBefore = System.currentTimeMillis() - ticketTtlMillis;
+        Ticket oldest;
+        while ((oldest = resolved.peek()) != null && oldest.resolvedAt < expiredBefore) {
+            resolved.poll();
+            tickets.remove(oldest.id);
+        }
+    }
+
+    // 关闭时仍在排队的呼叫标记为失败，等待中的调用方不会一直挂起
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Ticket> remaining = new ArrayList<>();
+        drain(remaining);
+        remaining.forEach(ticket -> ticket.resolve(TicketStatus.FAILED, null, null, "Service is shutting down"));
+    }
+
+    // 槽位随环形缓冲一起预先分配并反复使用
+    private static final class Slot {
+        private Ticket ticket;
+        private long publishedAt;
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final HallCall call;
+        private final CompletableFuture<RequestTicket> result = new CompletableFuture<>();
+        private volatile RequestTicket state;
+        private volatile long resolvedAt;
+
+        Ticket(String id, HallCall call) {
+            this.id = id;
+            this.call = call;
+            this.state = new RequestTicket(id, TicketStatus.QUEUED, call.getOriginFloor(),
+                    call.getDestinationFloor(), null, null, null);
+        }
+
+        void resolve(TicketStatus status, Long requestId, Long elevatorId, String error) {
+            state = new RequestTicket(id, status, call.getOriginFloor(), call.getDestinationFloor(),
+                    requestId, elevatorId, error);
+            resolvedAt = System.currentTimeMillis();
+            result.complete(state);
+        }
+    }
+}
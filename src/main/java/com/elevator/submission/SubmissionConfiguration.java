@@ -0,0 +1,9 @@
+package com.elevator.submission;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SubmissionProperties.class)
+public class SubmissionConfiguration {
+}
@@ -0,0 +1,21 @@
+package com.elevator.submission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "elevator.submission")
+public class SubmissionProperties {
+
+    // 异步提交队列容量，满了之后新的提交直接拒绝
+    private int queueCapacity = 10_000;
+
+    // 调度线程每次从队列取出并在一个事务内调度的最大呼叫数
+    private int batchSize = 100;
+
+    // 已完成的凭据保留时长，过期后无法再查询，单位毫秒
+    private long ticketTtlMillis = 5 * 60 * 1000;
+
+    // 长轮询的最长等待时间，单位毫秒
+    private long maxWaitMillis = 30_000;
+}
@@ -18,6 +18,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 
@@ -118,6 +119,150 @@ public class ElevatorSystemIntegrationTest {
         assertTrue(pendingRequests.isEmpty());
     }
 
+    @Test
+    public void testFleetStep() {
+        // 创建两部电梯，分别停在1楼和8楼
+        Elevator low = elevatorService.createElevator(10);
+        Elevator high = elevatorService.createElevator(10);
+        high.setCurrentFloor(8);
+        elevatorRepository.save(high);
+
+        elevatorService.createRequest(2, 4);
+        elevatorService.createRequest(9, 7);
+
+        // 一次调用推进全部电梯直到请求完成
+        given()
+            .queryParam("ticks", 10)
+        .when()
+            .post("/api/elevators/step")
+        .then()
+            .statusCode(200)
+            .body("size()", equalTo(2))
+            .body("pendingRequests", everyItem(equalTo(0)));
+
+        assertTrue(requestRepository.findByCompletedFalse().isEmpty());
+        assertEquals(4, elevatorService.getElevator(low.getId()).getCurrentFloor());
+        assertEquals(7, elevatorService.getElevator(high.getId()).getCurrentFloor());
+        assertEquals(0, elevatorService.getPendingRequestCount(low.getId()));
+        assertEquals(0, elevatorService.getPendingRequestCount(high.getId()));
+    }
+
+    @Test
+    public void testBulkRequestIngest() {
+        // 两部电梯，分别停在1楼和8楼
+        Elevator low = elevatorService.createElevator(10);
+        Elevator high = elevatorService.createElevator(10);
+        high.setCurrentFloor(8);
+        elevatorRepository.save(high);
+
+        // NDJSON 请求体，每行一个呼叫
+        given()
+            .contentType("application/x-ndjson")
+            .body(("{\"originFloor\":2,\"destinationFloor\":4}\n"
+                + "{\"originFloor\":9,\"destinationFloor\":7}\n"
+                + "{\"originFloor\":1,\"destinationFloor\":3}\n").getBytes(StandardCharsets.UTF_8))
+        .when()
+            .post("/api/elevators/requests/bulk")
+        .then()
+            .statusCode(200)
+            .contentType("application/x-ndjson")
+            .body(startsWith("{\"requestId\":"));
+
+        assertEquals(3, requestRepository.findByCompletedFalse().size());
+        assertEquals(2, elevatorService.getPendingRequestCount(low.getId()));
+        assertEquals(1, elevatorService.getPendingRequestCount(high.getId()));
+    }
+
+    @Test
+    public void testAsyncRequestSubmission() {
+        Elevator elevator = elevatorService.createElevator(10);
+
+        String ticketId = given()
+            .queryParam("originFloor", 2)
+            .queryParam("destinationFloor", 6)
+        .when()
+            .post("/api/elevators/requests/async")
+        .then()
+            .statusCode(202)
+            .header("Location", startsWith("/api/elevators/requests/tickets/"))
+            .body("status", equalTo("QUEUED"))
+            .extract().path("ticketId");
+
+        // 长轮询直到后台调度完成
+        given()
+            .queryParam("waitMillis", 5000)
+        .when()
+            .get("/api/elevators/requests/tickets/" + ticketId)
+        .then()
+            .statusCode(200)
+            .body("status", equalTo("ASSIGNED"))
+            .body("elevatorId", equalTo(elevator.getId().intValue()))
+            .body("requestId", notNullValue());
+
+        assertEquals(1, elevatorService.getPendingRequestCount(elevator.getId()));
+        get("/api/elevators/requests/tickets/unknown").then().statusCode(404);
+    }
+
+    @Test
+    public void testIdempotentRequestRetry() {
+        Elevator elevator = elevatorService.createElevator(10);
+
+        int first = given()
+            .header("Idempotency-Key", "gateway-retry-1")
+            .queryParam("originFloor", 2)
+            .queryParam("destinationFloor", 6)
+        .when()
+            .post("/api/elevators/" + elevator.getId() + "/requests")
+        .then()
+            .statusCode(200)
+            .extract().path("id");
+
+        // 网关重试：返回同一个请求，不再新建
+        given()
+            .header("Idempotency-Key", "gateway-retry-1")
+            .queryParam("originFloor", 2)
+            .queryParam("destinationFloor", 6)
+        .when()
+            .post("/api/elevators/" + elevator.getId() + "/requests")
+        .then()
+            .statusCode(200)
+            .body("id", equalTo(first));
+
+        assertEquals(1, requestRepository.findByCompletedFalse().size());
+        assertEquals(1, elevatorService.getPendingRequestCount(elevator.getId()));
+    }
+
+    @Test
+    public void testConditionalElevatorReads() {
+        Elevator low = elevatorService.createElevator(10);
+        Elevator high = elevatorService.createElevator(10);
+
+        String etag = get("/api/elevators").then().statusCode(200).extract().header("ETag");
+        given().header("If-None-Match", etag).when().get("/api/elevators").then().statusCode(304);
+
+        // 只有1号电梯移动，版本号递增并写入数据库
+        elevatorService.createRequest(3, 7);
+        elevatorService.advance(low.getId(), 1);
+        long since = Long.parseLong(etag.replace("\"", ""));
+        assertTrue(elevatorRepository.findById(low.getId()).get().getVersion() > since);
+        assertEquals(high.getVersion(), elevatorRepository.findById(high.getId()).get().getVersion());
+
+        given()
+            .header("If-None-Match", etag)
+            .queryParam("since", since)
+        .when()
+            .get("/api/elevators")
+        .then()
+            .statusCode(200)
+            .header("ETag", not(equalTo(etag)))
+            .body("size()", equalTo(1))
+            .body("[0].id", equalTo(low.getId().intValue()))
+            .body("[0].currentFloor", equalTo(3));
+
+        String elevatorEtag = get("/api/elevators/" + high.getId()).then().statusCode(200).extract().header("ETag");
+        given().header("If-None-Match", elevatorEtag).when().get("/api/elevators/" + high.getId()).then().statusCode(304);
+    }
+
     @Test
     public void testMultipleRequests() {
         // 创建电梯
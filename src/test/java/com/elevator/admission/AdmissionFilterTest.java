@@ -0,0 +1,91 @@
+package com.elevator.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setHallCallLimit(1);
+        properties.setReadLimit(1);
+        properties.setRetryAfterSeconds(2);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AdmissionFilter(properties, meterRegistry);
+    }
+
+    @Test
+    void doFilter_ShouldRejectHallCallWhenBudgetIsExhausted() throws Exception {
+        // Given - 第一个呼叫处理期间到达第二个呼叫
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(post("/api/elevators/1/requests"), first, (request, response) -> {
+            assertEquals(1.0, meterRegistry.get("elevator.admission.in-flight").tag("budget", "hall-call").gauge().value());
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(post("/api/elevators/requests/async"), second, (req, res) -> fail("Should not be admitted"));
+            nested.set(second);
+        });
+
+        // Then
+        assertEquals(200, first.getStatus());
+        assertEquals(503, nested.get().getStatus());
+        assertEquals("2", nested.get().getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("elevator.admission.rejected").tag("budget", "hall-call").counter().count());
+        assertEquals(0.0, meterRegistry.get("elevator.admission.in-flight").tag("budget", "hall-call").gauge().value());
+    }
+
+    @Test
+    void doFilter_ShouldKeepReadBudgetSeparateFromHallCalls() throws Exception {
+        // Given
+        MockHttpServletResponse read = new MockHttpServletResponse();
+
+        // When - 呼叫额度占满时查询仍可进入
+        filter.doFilter(post("/api/elevators/requests/bulk"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(get("/api/elevators/1"), read, (req, res) -> {
+                }));
+
+        // Then
+        assertEquals(200, read.getStatus());
+        assertEquals(0.0, meterRegistry.get("elevator.admission.rejected").tag("budget", "read").counter().count());
+    }
+
+    @Test
+    void doFilter_ShouldNotLimitEventStreamOrAdministrativeCalls() throws Exception {
+        // Given
+        MockHttpServletResponse events = new MockHttpServletResponse();
+        MockHttpServletResponse step = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(get("/api/elevators/1"), new MockHttpServletResponse(), (request, response) -> {
+            filter.doFilter(get("/api/elevators/events"), events, (req, res) -> {
+            });
+            filter.doFilter(post("/api/elevators/1/step"), step, (req, res) -> {
+            });
+        });
+
+        // Then
+        assertEquals(200, events.getStatus());
+        assertEquals(200, step.getStatus());
+    }
+
+    private static MockHttpServletRequest post(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+
+    private static MockHttpServletRequest get(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
@@ -2,8 +2,12 @@ package com.elevator.controller;
 
 import com.elevator.entity.Elevator;
 import com.elevator.entity.Request;
+import com.elevator.idempotency.IdempotencyCache;
 import com.elevator.model.Direction;
+import com.elevator.model.HallCall;
 import com.elevator.model.State;
+import com.elevator.model.StepReport;
+import com.elevator.service.BatchDispatcher;
 import com.elevator.service.ElevatorService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,12 +20,18 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +45,12 @@ class ElevatorControllerTest {
     @MockBean
     private ElevatorService elevatorService;
 
+    @MockBean
+    private BatchDispatcher batchDispatcher;
+
+    @MockBean
+    private IdempotencyCache<Request> requestIdempotencyCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -62,7 +78,7 @@ class ElevatorControllerTest {
     @Test
     void createElevator_ShouldReturnCreatedElevator() throws Exception {
         // Given
-        when(elevatorService.createElevator(anyInt())).thenReturn(testElevator);
+        when(elevatorService.createElevator(anyInt(), isNull())).thenReturn(testElevator);
 
         // When & Then
         mockMvc.perform(post("/api/elevators")
@@ -74,25 +90,25 @@ class ElevatorControllerTest {
                 .andExpect(jsonPath("$.direction").value("IDLE"))
                 .andExpect(jsonPath("$.state").value("IDLE"));
 
-        verify(elevatorService).createElevator(10);
+        verify(elevatorService).createElevator(10, null);
     }
 
     @Test
     void createElevator_ShouldUseDefaultCapacityWhenNotProvided() throws Exception {
         // Given
-        when(elevatorService.createElevator(anyInt())).thenReturn(testElevator);
+        when(elevatorService.createElevator(anyInt(), isNull())).thenReturn(testElevator);
 
         // When & Then
         mockMvc.perform(post("/api/elevators"))
                 .andExpect(status().isOk());
 
-        verify(elevatorService).createElevator(10); // Default capacity
+        verify(elevatorService).createElevator(10, null); // Default capacity
     }
 
     @Test
     void createRequest_ShouldReturnCreatedRequest() throws Exception {
         // Given
-        when(elevatorService.createRequest(anyInt(), anyInt())).thenReturn(testRequest);
+        when(elevatorService.createRequest(anyInt(), anyInt(), isNull())).thenReturn(testRequest);
 
         // When & Then
         mockMvc.perform(post("/api/elevators/1/requests")
@@ -105,19 +121,113 @@ class ElevatorControllerTest {
                 .andExpect(jsonPath("$.direction").value("UP"))
                 .andExpect(jsonPath("$.completed").value(false));
 
-        verify(elevatorService).createRequest(3, 7);
+        verify(elevatorService).createRequest(3, 7, null);
+    }
+
+    @Test
+    void createRequest_ShouldDispatchWithinRequestedBank() throws Exception {
+        // Given
+        testRequest.setBank("tower-b");
+        when(elevatorService.createRequest(3, 7, "tower-b")).thenReturn(testRequest);
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/1/requests")
+                .param("originFloor", "3")
+                .param("destinationFloor", "7")
+                .param("bank", "tower-b"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bank").value("tower-b"));
+    }
+
+    @Test
+    void createRequest_ShouldGoThroughBatchDispatcherWhenEnabled() throws Exception {
+        // Given
+        when(batchDispatcher.isEnabled()).thenReturn(true);
+        when(batchDispatcher.submit(new HallCall(3, 7))).thenReturn(testRequest);
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/1/requests")
+                .param("originFloor", "3")
+                .param("destinationFloor", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+
+        verify(elevatorService, never()).createRequest(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void createRequest_ShouldGoThroughIdempotencyCacheWhenKeyIsPresent() throws Exception {
+        // Given
+        when(elevatorService.createRequest(3, 7, null)).thenReturn(testRequest);
+        when(requestIdempotencyCache.execute(eq("retry-1"), eq(new HallCall(3, 7)), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Request>>getArgument(2).get());
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/1/requests")
+                .header("Idempotency-Key", "retry-1")
+                .param("originFloor", "3")
+                .param("destinationFloor", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+
+        verify(elevatorService).createRequest(3, 7, null);
     }
 
     @Test
-    void processNextStep_ShouldReturnOk() throws Exception {
+    void processNextStep_ShouldAdvanceOneTickAndReturnReport() throws Exception {
         // Given
-        doNothing().when(elevatorService).processNextStep(anyLong());
+        when(elevatorService.advance(1L, 1)).thenReturn(new StepReport(1L, 1, 0, 1, 2, Direction.UP, State.MOVING));
 
         // When & Then
         mockMvc.perform(post("/api/elevators/1/step"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elevatorId").value(1))
+                .andExpect(jsonPath("$.ticks").value(1))
+                .andExpect(jsonPath("$.currentFloor").value(2));
+
+        verify(elevatorService).advance(1L, 1);
+    }
+
+    @Test
+    void processNextStep_WithTicks_ShouldReturnReport() throws Exception {
+        // Given
+        StepReport report = new StepReport(1L, 3, 1, 0, 8, Direction.IDLE, State.IDLE);
+        when(elevatorService.advance(1L, 5)).thenReturn(report);
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/1/step").param("ticks", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ticks").value(3))
+                .andExpect(jsonPath("$.completedRequests").value(1))
+                .andExpect(jsonPath("$.currentFloor").value(8));
+
+        verify(elevatorService, never()).processNextStep(anyLong());
+    }
 
-        verify(elevatorService).processNextStep(1L);
+    @Test
+    void processNextStep_UntilIdle_ShouldAdvanceUntilIdle() throws Exception {
+        // Given
+        when(elevatorService.advanceUntilIdle(1L))
+                .thenReturn(new StepReport(1L, 4, 2, 0, 3, Direction.IDLE, State.IDLE));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/1/step").param("untilIdle", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("IDLE"));
+    }
+
+    @Test
+    void processFleetStep_ShouldAdvanceAllElevators() throws Exception {
+        // Given
+        when(elevatorService.advanceAll(2)).thenReturn(Arrays.asList(
+                new StepReport(1L, 2, 0, 1, 5, Direction.UP, State.MOVING),
+                new StepReport(2L, 0, 0, 0, 1, Direction.IDLE, State.IDLE)));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/step").param("ticks", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].currentFloor").value(5));
     }
 
     @Test
@@ -150,6 +260,63 @@ class ElevatorControllerTest {
         verify(elevatorService).getElevator(1L);
     }
 
+    @Test
+    void getAllElevators_ShouldReturnNotModifiedWhenFleetVersionMatches() throws Exception {
+        // Given
+        when(elevatorService.getFleetVersion()).thenReturn(42L);
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators").header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"42\""))
+                .andExpect(content().string(""));
+
+        verify(elevatorService, never()).getAllElevators();
+    }
+
+    @Test
+    void getAllElevators_ShouldReturnOnlyElevatorsChangedSinceVersion() throws Exception {
+        // Given
+        testElevator.setVersion(43L);
+        when(elevatorService.getFleetVersion()).thenReturn(43L);
+        when(elevatorService.getElevatorsChangedSince(42L)).thenReturn(Collections.singletonList(testElevator));
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators").param("since", "42").header("If-None-Match", "\"42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"43\""))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].version").value(43));
+
+        verify(elevatorService, never()).getAllElevators();
+    }
+
+    @Test
+    void getElevator_ShouldReturnNotModifiedWhenVersionMatches() throws Exception {
+        // Given
+        when(elevatorService.findElevatorVersion(1L)).thenReturn(Optional.of(7L));
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators/1").header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified());
+
+        verify(elevatorService, never()).getElevator(anyLong());
+    }
+
+    @Test
+    void getElevator_ShouldTagBodyWithTheVersionUsedForTheConditionalCheck() throws Exception {
+        // Given - 读取版本号之后、加载实体之前有一次推进提交
+        when(elevatorService.findElevatorVersion(1L)).thenReturn(Optional.of(7L));
+        testElevator.setVersion(8L);
+        when(elevatorService.getElevator(1L)).thenReturn(testElevator);
+
+        // When & Then - ETag 仍为比较时的版本，客户端下次带 "7" 会拿到新状态而不是 304
+        mockMvc.perform(get("/api/elevators/1").header("If-None-Match", "\"6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(jsonPath("$.version").value(8));
+    }
+
     @Test
     void getPendingRequests_ShouldReturnRequestList() throws Exception {
         // Given
@@ -169,7 +336,7 @@ class ElevatorControllerTest {
     @Test
     void createElevator_ShouldHandleServiceException() throws Exception {
         // Given
-        when(elevatorService.createElevator(anyInt())).thenThrow(new RuntimeException("Service error"));
+        when(elevatorService.createElevator(anyInt(), isNull())).thenThrow(new RuntimeException("Service error"));
 
         // When & Then
         mockMvc.perform(post("/api/elevators")
@@ -217,4 +384,106 @@ class ElevatorControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPendingRequestCount_ShouldReturnCount() throws Exception {
+        // Given
+        when(elevatorService.getPendingRequestCount(1L)).thenReturn(3);
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators/1/requests/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        verify(elevatorService).getPendingRequestCount(1L);
+    }
+
+    @Test
+    void getPendingRequestCounts_ShouldReturnCountsPerElevator() throws Exception {
+        // Given
+        Map<Long, Integer> counts = new HashMap<>();
+        counts.put(1L, 2);
+        counts.put(2L, 0);
+        when(elevatorService.getPendingRequestCounts()).thenReturn(counts);
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators/pending-counts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1").value(2))
+                .andExpect(jsonPath("$.2").value(0));
+    }
+
+    @Test
+    void createRequest_ShouldReturnBadRequestForFloorOutsideBuilding() throws Exception {
+        // Given
+        when(elevatorService.createRequest(anyInt(), anyInt(), isNull()))
+                .thenThrow(new IllegalArgumentException("Floor 15 is outside building range 1-10"));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/1/requests")
+                .param("originFloor", "3")
+                .param("destinationFloor", "15"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createRequests_ShouldStreamAssignmentsForNdjsonBody() throws Exception {
+        // Given
+        testRequest.setElevator(testElevator);
+        when(elevatorService.createRequests(anyList())).thenReturn(Collections.singletonList(testRequest));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/requests/bulk")
+                .contentType("application/x-ndjson")
+                .content("{\"originFloor\":3,\"destinationFloor\":7}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"requestId\":1,\"elevatorId\":1,\"originFloor\":3,"
+                        + "\"destinationFloor\":7,\"direction\":\"UP\"}\n"));
+
+        verify(elevatorService).createRequests(Collections.singletonList(new HallCall(3, 7)));
+    }
+
+    @Test
+    void createRequests_ShouldAcceptJsonArrayBody() throws Exception {
+        // Given
+        testRequest.setElevator(testElevator);
+        when(elevatorService.createRequests(anyList())).thenReturn(Arrays.asList(testRequest, testRequest));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/requests/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"originFloor\":3,\"destinationFloor\":7},{\"originFloor\":9,\"destinationFloor\":2}]"))
+                .andExpect(status().isOk());
+
+        verify(elevatorService).createRequests(Arrays.asList(new HallCall(3, 7), new HallCall(9, 2)));
+    }
+
+    @Test
+    void createRequests_ShouldServeJsonArrayClientThatAcceptsJson() throws Exception {
+        // Given
+        testRequest.setElevator(testElevator);
+        when(elevatorService.createRequests(anyList())).thenReturn(Collections.singletonList(testRequest));
+
+        // When & Then - 不因 Accept 与 NDJSON 不匹配返回 406
+        mockMvc.perform(post("/api/elevators/requests/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("[{\"originFloor\":3,\"destinationFloor\":7}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"requestId\":1,\"elevatorId\":1,\"originFloor\":3,"
+                        + "\"destinationFloor\":7,\"direction\":\"UP\"}\n"));
+    }
+
+    @Test
+    void createRequests_ShouldReturnBadRequestForMalformedFirstLine() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/elevators/requests/bulk")
+                .contentType("application/x-ndjson")
+                .content("{\"originFloor\":3,"))
+                .andExpect(status().isBadRequest());
+
+        verify(elevatorService, never()).createRequests(anyList());
+    }
+}
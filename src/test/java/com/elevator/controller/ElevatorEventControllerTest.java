@@ -0,0 +1,101 @@
+package com.elevator.controller;
+
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.events.ElevatorDelta;
+import com.elevator.events.ElevatorEventStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ElevatorEventController.class)
+class ElevatorEventControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ElevatorEventStream eventStream;
+
+    @MockBean
+    private ElevatorBanks banks;
+
+    @Test
+    void subscribe_ShouldStreamCompactDeltas() throws Exception {
+        // Given
+        SseEmitter emitter = new SseEmitter();
+        when(eventStream.subscribe(anySet(), any(), anyBoolean())).thenReturn(emitter);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/elevators/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("delta").data(new ElevatorDelta(1L, 4, null, null, null, null)));
+        emitter.complete();
+
+        // Then - 未变化的字段不输出
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("event:delta\ndata:{\"elevatorId\":1,\"currentFloor\":4}\n\n"));
+        verify(eventStream).subscribe(Collections.emptySet(), null, true);
+    }
+
+    @Test
+    void subscribe_ShouldPassElevatorFilterAndSnapshotFlag() throws Exception {
+        // Given
+        when(eventStream.subscribe(anySet(), any(), anyBoolean())).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators/events")
+                .param("elevatorIds", "1,2")
+                .param("snapshot", "false")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(eventStream).subscribe(new HashSet<>(Arrays.asList(1L, 2L)), null, false);
+    }
+
+    @Test
+    void subscribe_ShouldPassResolvedBankFilter() throws Exception {
+        // Given
+        when(banks.resolve("tower-b")).thenReturn("tower-b");
+        when(eventStream.subscribe(anySet(), any(), anyBoolean())).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators/events")
+                .param("bank", "tower-b")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(eventStream).subscribe(Collections.emptySet(), "tower-b", true);
+    }
+
+    @Test
+    void subscribe_ShouldRejectUnknownBank() throws Exception {
+        // Given
+        when(banks.resolve("nowhere")).thenThrow(new IllegalArgumentException("Unknown elevator bank: nowhere"));
+
+        // When & Then
+        mockMvc.perform(get("/api/elevators/events")
+                .param("bank", "nowhere")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(eventStream);
+    }
+}
@@ -0,0 +1,105 @@
+package com.elevator.controller;
+
+import com.elevator.idempotency.IdempotencyCache;
+import com.elevator.model.HallCall;
+import com.elevator.model.RequestTicket;
+import com.elevator.model.TicketStatus;
+import com.elevator.submission.RequestSubmissionQueue;
+import com.elevator.submission.SubmissionProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RequestSubmissionController.class)
+class RequestSubmissionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RequestSubmissionQueue submissionQueue;
+
+    @MockBean
+    private SubmissionProperties submissionProperties;
+
+    @MockBean
+    private IdempotencyCache<RequestTicket> ticketIdempotencyCache;
+
+    @Test
+    void submitRequest_ShouldReturnAcceptedTicket() throws Exception {
+        // Given
+        when(submissionQueue.submit(new HallCall(1, 5))).thenReturn(ticket(TicketStatus.QUEUED, null));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/requests/async")
+                .param("originFloor", "1")
+                .param("destinationFloor", "5"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/elevators/requests/tickets/t-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.elevatorId").doesNotExist());
+    }
+
+    @Test
+    void submitRequest_ShouldReturnServiceUnavailableWhenQueueIsFull() throws Exception {
+        // Given
+        when(submissionQueue.submit(any(HallCall.class))).thenThrow(new RejectedExecutionException("Request queue is full"));
+
+        // When & Then
+        mockMvc.perform(post("/api/elevators/requests/async")
+                .param("originFloor", "1")
+                .param("destinationFloor", "5"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void getTicket_ShouldLongPollUntilAssigned() throws Exception {
+        // Given
+        CompletableFuture<RequestTicket> completion = new CompletableFuture<>();
+        when(submissionProperties.getMaxWaitMillis()).thenReturn(30_000L);
+        when(submissionQueue.completion("t-1")).thenReturn(Optional.of(completion));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/elevators/requests/tickets/t-1").param("waitMillis", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        completion.complete(ticket(TicketStatus.ASSIGNED, 2L));
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ASSIGNED"))
+                .andExpect(jsonPath("$.elevatorId").value(2));
+    }
+
+    @Test
+    void getTicket_ShouldReturnNotFoundForUnknownTicket() throws Exception {
+        // Given
+        when(submissionQueue.completion("missing")).thenReturn(Optional.empty());
+        when(submissionQueue.find("missing")).thenReturn(Optional.empty());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/elevators/requests/tickets/missing"))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    private static RequestTicket ticket(TicketStatus status, Long elevatorId) {
+        return new RequestTicket("t-1", status, 1, 5, elevatorId == null ? null : 10L, elevatorId, null);
+    }
+}
@@ -0,0 +1,70 @@
+package com.elevator.controller;
+
+import com.elevator.entity.Elevator;
+import com.elevator.simulation.SimulationClock;
+import com.elevator.simulation.SimulationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SimulationController.class)
+class SimulationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SimulationClock simulationClock;
+
+    @Test
+    void getStatus_ShouldReturnClockStatus() throws Exception {
+        // Given
+        when(simulationClock.status()).thenReturn(new SimulationStatus(true, true, 500, 42, 3, 1, 12,
+                Collections.singleton(Elevator.DEFAULT_BANK)));
+
+        // When & Then
+        mockMvc.perform(get("/api/simulation"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running").value(true))
+                .andExpect(jsonPath("$.ticks").value(42))
+                .andExpect(jsonPath("$.overruns").value(3))
+                .andExpect(jsonPath("$.skipped").value(1))
+                .andExpect(jsonPath("$.leader").value(true))
+                .andExpect(jsonPath("$.leaderBanks[0]").value(Elevator.DEFAULT_BANK));
+    }
+
+    @Test
+    void pause_ShouldStopClock() throws Exception {
+        // Given
+        when(simulationClock.pause()).thenReturn(new SimulationStatus(false, false, 500, 42, 3, 1, 12,
+                Collections.emptySet()));
+
+        // When & Then
+        mockMvc.perform(post("/api/simulation/pause"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running").value(false));
+
+        verify(simulationClock).pause();
+    }
+
+    @Test
+    void resume_ShouldStartClock() throws Exception {
+        // Given
+        when(simulationClock.resume()).thenReturn(new SimulationStatus(true, false, 500, 0, 0, 0, 0, Collections.emptySet()));
+
+        // When & Then
+        mockMvc.perform(post("/api/simulation/resume"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running").value(true));
+
+        verify(simulationClock).resume();
+    }
+}
@@ -0,0 +1,70 @@
+package com.elevator.dispatch;
+
+import com.elevator.entity.Elevator;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtaStrategyTest {
+
+    private EtaStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        // 2 m floors at 2 m/s with 2 m/s^2: running d floors takes (d + 1) seconds
+        BuildingTopology building = new BuildingTopology();
+        building.setFloors(20);
+        building.setFloorHeightMeters(2);
+        building.setMaxSpeedMetersPerSecond(2);
+        building.setAccelerationMetersPerSecondSquared(2);
+        building.setDoorDwellMillis(5000);
+        building.setTurnaroundMillis(2000);
+        strategy = new EtaStrategy(new TravelTimeTable(building));
+    }
+
+    @Test
+    void cost_ShouldAddDoorDwellForIntermediateStops() {
+        // 3 -> 5 -> 8 -> 10: three runs plus two door dwells
+        assertEquals(3000 + 4000 + 3000 + 2 * 5000,
+                strategy.cost(elevator(3, Direction.UP, 5, 8, 15), 10, Direction.UP, 0));
+    }
+
+    @Test
+    void cost_ShouldTurnAroundAtFarthestStopNotTopFloor() {
+        // UP at 6 with highest stop 9, request at 4: 3 floors up, stop at 9, turnaround, 5 floors down
+        assertEquals(4000 + 5000 + 2000 + 6000, strategy.cost(elevator(6, Direction.UP, 9), 4, Direction.DOWN, 0));
+    }
+
+    @Test
+    void cost_ShouldPreferNearbyCarWithFewStopsOverCloserCarWithManyStops() {
+        int busy = strategy.cost(elevator(2, Direction.UP, 3, 4, 5, 6), 8, Direction.UP, 0);
+        int free = strategy.cost(elevator(14, Direction.IDLE), 8, Direction.UP, 0);
+        assertTrue(free < busy);
+    }
+
+    @Test
+    void cost_ShouldNeverBeBelowLowerBound() {
+        for (int floor = 1; floor <= 20; floor++) {
+            for (Direction direction : Direction.values()) {
+                int cost = strategy.cost(elevator(floor, direction, 2, 17), 9, Direction.UP, 1);
+                assertTrue(cost >= strategy.lowerBound(Math.abs(floor - 9)));
+            }
+        }
+    }
+
+    private ElevatorSnapshot elevator(int floor, Direction direction, Integer... stops) {
+        Elevator elevator = new Elevator();
+        elevator.setId(1L);
+        elevator.setMaxCapacity(10);
+        elevator.setCurrentFloor(floor);
+        elevator.setDirection(direction);
+        elevator.setStops(new HashSet<>(Arrays.asList(stops)));
+        return ElevatorSnapshot.of(elevator);
+    }
+}
@@ -0,0 +1,119 @@
+package com.elevator.dispatch;
+
+import com.elevator.entity.Elevator;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import com.elevator.model.HallCall;
+import com.elevator.model.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JointAssignmentTest {
+
+    private NearestCarStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        BuildingTopology building = new BuildingTopology();
+        building.setFloors(10);
+        building.setLowestFloor(1);
+        strategy = new NearestCarStrategy(building);
+    }
+
+    @Test
+    void solve_ShouldFindMinimumTotalCost() {
+        // Given - 贪心按行依次选最小值会得到 1 + 7 + 8 = 16
+        long[][] cost = {
+                {1, 2, 9},
+                {1, 7, 8},
+                {3, 9, 8}
+        };
+
+        // When
+        int[] columns = JointAssignment.solve(cost);
+
+        // Then - 最优为 2 + 1 + 8 = 11
+        assertArrayEquals(new int[]{1, 0, 2}, columns);
+    }
+
+    @Test
+    void solve_ShouldLeaveExtraColumnsUnused() {
+        // When
+        int[] columns = JointAssignment.solve(new long[][]{{5, 4, 3, 9}, {1, 6, 6, 6}});
+
+        // Then
+        assertArrayEquals(new int[]{2, 0}, columns);
+    }
+
+    @Test
+    void assign_ShouldSpreadCallsWhereGreedyWouldPileOntoOneCar() {
+        // Given - 1楼和10楼各一部空闲电梯；逐个贪心时两个呼叫都会选1楼的电梯（4 + 1+2 = 7）
+        List<ElevatorSnapshot> fleet = Arrays.asList(elevator(1L, 1, 0), elevator(2L, 10, 0));
+        List<HallCall> calls = Arrays.asList(new HallCall(5, 8), new HallCall(2, 6));
+
+        // When
+        List<ElevatorSnapshot> assigned = JointAssignment.assign(strategy, fleet, id -> 0, calls);
+
+        // Then - 联合指派总成本 5 + 1 = 6
+        assertEquals(2L, assigned.get(0).getId());
+        assertEquals(1L, assigned.get(1).getId());
+    }
+
+    @Test
+    void assign_ShouldSplitWindowBetweenMovingAndIdleCar() {
+        // Given - 4楼上行的电梯对三个上行呼叫报价与待处理数无关（1、2、3），1楼有一部空闲电梯（4、5、6）
+        List<ElevatorSnapshot> fleet = Arrays.asList(
+                elevator(1L, 4, 0, Direction.UP), elevator(2L, 1, 0, Direction.IDLE));
+        List<HallCall> calls = Arrays.asList(new HallCall(5, 9), new HallCall(6, 9), new HallCall(7, 9));
+
+        // When
+        List<ElevatorSnapshot> assigned = JointAssignment.assign(strategy, fleet, id -> 0, calls);
+
+        // Then - 不加停靠成本时三个呼叫全部分给上行电梯（1 + 2 + 3 = 6）；每个额外呼叫加2后拆分更优
+        long moving = assigned.stream().filter(elevator -> elevator.getId() == 1L).count();
+        assertEquals(2, moving);
+        assertEquals(1, assigned.stream().filter(elevator -> elevator.getId() == 2L).count());
+    }
+
+    @Test
+    void assign_ShouldChargeEachExtraCallOnTheSameCar() {
+        // Given - 只有一部电梯，两个呼叫都只能分给它
+        List<ElevatorSnapshot> fleet = Collections.singletonList(elevator(1L, 1, 0));
+        List<HallCall> calls = Arrays.asList(new HallCall(3, 5), new HallCall(4, 2));
+
+        // When
+        List<ElevatorSnapshot> assigned = JointAssignment.assign(strategy, fleet, id -> 0, calls);
+
+        // Then
+        assertEquals(1L, assigned.get(0).getId());
+        assertEquals(1L, assigned.get(1).getId());
+    }
+
+    @Test
+    void assign_ShouldReturnNullWhenOnlyFullCarsRemain() {
+        // Given
+        List<ElevatorSnapshot> fleet = Collections.singletonList(elevator(1L, 1, 10));
+
+        // When
+        List<ElevatorSnapshot> assigned = JointAssignment.assign(strategy, fleet, id -> 0,
+                Collections.singletonList(new HallCall(3, 5)));
+
+        // Then
+        assertNull(assigned.get(0));
+    }
+
+    private ElevatorSnapshot elevator(Long id, int floor, int load) {
+        return elevator(id, floor, load, Direction.IDLE);
+    }
+
+    private ElevatorSnapshot elevator(Long id, int floor, int load, Direction direction) {
+        State state = direction == Direction.IDLE ? State.IDLE : State.MOVING;
+        return new ElevatorSnapshot(id, 10, load, floor, direction, state, new int[0], 0, 0, Elevator.DEFAULT_BANK);
+    }
+}
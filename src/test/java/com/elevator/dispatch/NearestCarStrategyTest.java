@@ -0,0 +1,69 @@
+package com.elevator.dispatch;
+
+import com.elevator.entity.Elevator;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearestCarStrategyTest {
+
+    private BuildingTopology building;
+    private NearestCarStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        building = new BuildingTopology();
+        building.setFloors(30);
+        building.setLowestFloor(-2);
+        strategy = new NearestCarStrategy(building);
+    }
+
+    @Test
+    void cost_ShouldUseFloorDistanceForIdleElevatorPlusPendingPenalty() {
+        assertEquals(4, strategy.cost(elevator(3, Direction.IDLE), 7, Direction.UP, 0));
+        assertEquals(10, strategy.cost(elevator(3, Direction.IDLE), 7, Direction.UP, 3));
+    }
+
+    @Test
+    void cost_ShouldTurnAroundAtConfiguredTopFloor() {
+        // top floor is 27: (27 - 20) + (27 - 5)
+        assertEquals(29, strategy.cost(elevator(20, Direction.UP), 5, Direction.UP, 0));
+    }
+
+    @Test
+    void cost_ShouldTurnAroundAtConfiguredLowestFloor() {
+        // lowest floor is -2: (4 - -2) + (9 - -2)
+        assertEquals(17, strategy.cost(elevator(4, Direction.DOWN), 9, Direction.DOWN, 0));
+    }
+
+    @Test
+    void cost_ShouldNeverBeBelowLowerBound() {
+        for (int floor = building.getLowestFloor(); floor <= building.getHighestFloor(); floor++) {
+            for (Direction direction : Direction.values()) {
+                int cost = strategy.cost(elevator(floor, direction), 12, Direction.DOWN, 0);
+                assertTrue(cost >= strategy.lowerBound(Math.abs(floor - 12)));
+            }
+        }
+    }
+
+    @Test
+    void cost_ShouldBeMaxForFullElevator() {
+        Elevator full = new Elevator();
+        full.setId(1L);
+        full.setMaxCapacity(2);
+        full.setCurrentLoad(2);
+        assertEquals(Integer.MAX_VALUE, strategy.cost(ElevatorSnapshot.of(full), 3, Direction.UP, 0));
+    }
+
+    private ElevatorSnapshot elevator(int floor, Direction direction) {
+        Elevator elevator = new Elevator();
+        elevator.setId(1L);
+        elevator.setMaxCapacity(10);
+        elevator.setCurrentFloor(floor);
+        elevator.setDirection(direction);
+        return ElevatorSnapshot.of(elevator);
+    }
+}
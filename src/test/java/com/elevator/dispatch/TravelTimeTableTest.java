@@ -0,0 +1,55 @@
+package com.elevator.dispatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TravelTimeTableTest {
+
+    private TravelTimeTable table;
+
+    @BeforeEach
+    void setUp() {
+        // 3 m floors, 2 m/s, 1 m/s^2: reaching full speed takes 4 m of ramps
+        BuildingTopology building = new BuildingTopology();
+        building.setFloors(12);
+        building.setFloorHeightMeters(3);
+        building.setMaxSpeedMetersPerSecond(2);
+        building.setAccelerationMetersPerSecondSquared(1);
+        building.setDoorDwellMillis(4000);
+        table = new TravelTimeTable(building);
+    }
+
+    @Test
+    void run_ShouldUseTriangularProfileForShortHops() {
+        // 3 m never reaches 2 m/s: 2 * sqrt(3 / 1)
+        assertEquals((int) Math.ceil(2 * Math.sqrt(3) * 1000), table.run(1));
+    }
+
+    @Test
+    void run_ShouldUseTrapezoidalProfileForLongRuns() {
+        // 30 m: 30 / 2 + 2 / 1 seconds
+        assertEquals(17000, table.run(10));
+        assertEquals(0, table.run(0));
+    }
+
+    @Test
+    void run_ShouldExtrapolateBeyondBuilding() {
+        assertEquals(table.run(11) + 3 * 1500, table.run(14));
+    }
+
+    @Test
+    void route_ShouldBreakRunAtEachIntermediateStop() {
+        int[] stops = {2, 4, 9};
+        assertEquals(table.run(1) + 4000 + table.run(2) + 4000 + table.run(2), table.route(1, 6, stops));
+        assertEquals(table.run(5) + 4000 + table.run(3), table.route(9, 1, stops, 3, 9));
+    }
+
+    @Test
+    void minRun_ShouldBoundAnySegmentedRoute() {
+        int[] stops = {2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertTrue(table.route(1, 11, stops) >= table.minRun(10));
+        assertTrue(table.minRun(10) <= table.run(10));
+    }
+}
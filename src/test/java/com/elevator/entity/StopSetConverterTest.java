@@ -0,0 +1,29 @@
+package com.elevator.entity;
+
+import com.elevator.model.StopSet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopSetConverterTest {
+
+    private final StopSetConverter converter = new StopSetConverter();
+
+    @Test
+    void convert_ShouldRoundTripStops() {
+        StopSet stops = new StopSet();
+        stops.addFloor(2);
+        stops.addFloor(8);
+
+        StopSet restored = converter.convertToEntityAttribute(converter.convertToDatabaseColumn(stops));
+
+        assertEquals(stops, restored);
+        assertNotSame(stops, restored);
+    }
+
+    @Test
+    void convertToEntityAttribute_ShouldTreatNullColumnAsNoStops() {
+        assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+}
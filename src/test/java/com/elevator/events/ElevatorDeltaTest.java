@@ -0,0 +1,55 @@
+package com.elevator.events;
+
+import com.elevator.entity.Elevator;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.model.Direction;
+import com.elevator.model.State;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElevatorDeltaTest {
+
+    @Test
+    void between_ShouldCarryOnlyChangedFields() {
+        // Given
+        ElevatorSnapshot previous = snapshot(3, Direction.UP, State.MOVING, 0, 5, 8);
+        ElevatorSnapshot current = snapshot(5, Direction.UP, State.DOOR_OPEN, 0, 8);
+
+        // When
+        ElevatorDelta delta = ElevatorDelta.between(1L, previous, current);
+
+        // Then
+        assertEquals(1L, delta.getElevatorId());
+        assertEquals(5, delta.getCurrentFloor());
+        assertNull(delta.getDirection());
+        assertEquals(State.DOOR_OPEN, delta.getState());
+        assertArrayEquals(new int[]{8}, delta.getStops());
+        assertNull(delta.getRemoved());
+    }
+
+    @Test
+    void between_ShouldIgnoreChangesThatAreNotPublished() {
+        // Given - 只有载客数变化
+        ElevatorSnapshot previous = snapshot(3, Direction.UP, State.MOVING, 0, 5);
+        ElevatorSnapshot current = snapshot(3, Direction.UP, State.MOVING, 2, 5);
+
+        // When & Then
+        assertNull(ElevatorDelta.between(1L, previous, current));
+    }
+
+    @Test
+    void between_ShouldReportNewAndRemovedElevators() {
+        // Given
+        ElevatorSnapshot elevator = snapshot(1, Direction.IDLE, State.IDLE, 0);
+
+        // When & Then
+        assertEquals(ElevatorDelta.snapshot(elevator), ElevatorDelta.between(1L, null, elevator));
+        assertTrue(ElevatorDelta.between(1L, elevator, null).getRemoved());
+        assertNull(ElevatorDelta.between(1L, elevator, null).getCurrentFloor());
+    }
+
+    private ElevatorSnapshot snapshot(int floor, Direction direction, State state, int load, int... stops) {
+        return new ElevatorSnapshot(1L, 10, load, floor, direction, state, stops, 0, 0, Elevator.DEFAULT_BANK);
+    }
+}
@@ -0,0 +1,157 @@
+package com.elevator.events;
+
+import com.elevator.entity.Elevator;
+import com.elevator.fleet.FleetRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElevatorEventStreamTest {
+
+    private FleetRegistry fleetRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private ElevatorEventStream eventStream;
+
+    @BeforeEach
+    void setUp() {
+        fleetRegistry = new FleetRegistry();
+        meterRegistry = new SimpleMeterRegistry();
+        eventStream = new ElevatorEventStream(fleetRegistry, new ElevatorEventProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventStream.shutdown();
+    }
+
+    @Test
+    void subscribe_ShouldSendSnapshotThenDeltas() throws Exception {
+        // Given
+        Elevator elevator = elevator(1L, 3);
+        fleetRegistry.register(elevator);
+        CapturingEmitter emitter = new CapturingEmitter();
+
+        // When
+        eventStream.subscribe(Collections.emptySet(), null, true, emitter);
+
+        // Then
+        String snapshot = emitter.next();
+        assertTrue(snapshot.contains("event:snapshot"));
+        assertTrue(snapshot.contains("currentFloor=3"));
+
+        // When
+        elevator.setCurrentFloor(4);
+        fleetRegistry.register(elevator);
+
+        // Then
+        String delta = emitter.next();
+        assertTrue(delta.contains("event:delta"));
+        assertTrue(delta.contains("currentFloor=4"));
+        assertTrue(delta.contains("state=null"));
+        assertEquals(1, meterRegistry.get("elevator.events.deltas").counter().count());
+    }
+
+    @Test
+    void subscribe_ShouldOnlySendFilteredElevators() throws Exception {
+        // Given
+        CapturingEmitter emitter = new CapturingEmitter();
+        eventStream.subscribe(Collections.singleton(2L), null, false, emitter);
+
+        // When
+        fleetRegistry.register(elevator(1L, 3));
+        fleetRegistry.register(elevator(2L, 7));
+
+        // Then
+        String event = emitter.next();
+        assertTrue(event.contains("elevatorId=2"));
+        assertNull(emitter.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void subscribe_ShouldOnlySendElevatorsOfRequestedBank() throws Exception {
+        // Given
+        Elevator tower = elevator(2L, 7);
+        tower.setBank("tower-b");
+        fleetRegistry.register(elevator(1L, 3));
+        fleetRegistry.register(tower);
+        CapturingEmitter emitter = new CapturingEmitter();
+
+        // When
+        eventStream.subscribe(Collections.emptySet(), "tower-b", true, emitter);
+
+        // Then - 快照和增量都只包含塔楼组的电梯
+        assertTrue(emitter.next().contains("elevatorId=2"));
+        fleetRegistry.register(elevator(1L, 4));
+        tower.setCurrentFloor(8);
+        fleetRegistry.register(tower);
+        String delta = emitter.next();
+        assertTrue(delta.contains("elevatorId=2"));
+        assertTrue(delta.contains("currentFloor=8"));
+        assertNull(emitter.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void send_ShouldDropSubscriberWhenClientIsGone() throws Exception {
+        // Given
+        CapturingEmitter emitter = new CapturingEmitter();
+        emitter.failing = true;
+        eventStream.subscribe(Collections.emptySet(), null, false, emitter);
+
+        // When
+        fleetRegistry.register(elevator(1L, 3));
+
+        // Then
+        assertTrue(emitter.failed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, eventStream.subscriberCount());
+        assertEquals(0, meterRegistry.get("elevator.events.subscribers").gauge().value());
+    }
+
+    private Elevator elevator(Long id, int floor) {
+        Elevator elevator = new Elevator();
+        elevator.setId(id);
+        elevator.setMaxCapacity(10);
+        elevator.setCurrentFloor(floor);
+        return elevator;
+    }
+
+    // 记录发送的事件而不写入HTTP连接
+    private static class CapturingEmitter extends SseEmitter {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private volatile boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable ex) {
+            super.completeWithError(ex);
+            failed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "expected an event");
+            return event;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Elevator;
+import com.elevator.model.Direction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetRegistryTest {
+
+    private FleetRegistry fleetRegistry;
+
+    @BeforeEach
+    void setUp() {
+        fleetRegistry = new FleetRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void register_ShouldExposeSnapshotOfElevatorState() {
+        // Given
+        Elevator elevator = elevator(1L, 4);
+        elevator.setDirection(Direction.UP);
+        elevator.getStops().add(7);
+
+        // When
+        fleetRegistry.register(elevator);
+        elevator.getStops().add(9); // later changes must not leak into the snapshot
+
+        // Then
+        ElevatorSnapshot snapshot = fleetRegistry.find(1L).orElseThrow(AssertionError::new);
+        assertEquals(4, snapshot.getCurrentFloor());
+        assertEquals(Direction.UP, snapshot.getDirection());
+        assertArrayEquals(new int[]{7}, snapshot.getStops());
+        assertTrue(snapshot.hasStop(7));
+        assertFalse(snapshot.hasStop(9));
+    }
+
+    @Test
+    void unregister_ShouldRemoveElevator() {
+        // Given
+        fleetRegistry.register(elevator(1L, 1));
+        fleetRegistry.register(elevator(2L, 5));
+
+        // When
+        fleetRegistry.unregister(1L);
+
+        // Then
+        assertEquals(1, fleetRegistry.size());
+        assertFalse(fleetRegistry.find(1L).isPresent());
+    }
+
+    @Test
+    void getElevators_ShouldKeepPerBankViewInStepWithRegistrations() {
+        // Given
+        Elevator tower = elevator(2L, 5);
+        tower.setBank("tower-b");
+        fleetRegistry.registerAll(Arrays.asList(elevator(1L, 1), tower));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When - 事务中删除塔楼组的电梯后回滚
+        fleetRegistry.unregister(2L);
+        assertTrue(fleetRegistry.getElevators("tower-b").isEmpty());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertEquals(1, fleetRegistry.getElevators("tower-b").size());
+        assertEquals(2L, fleetRegistry.getElevators("tower-b").get(0).getId());
+        assertEquals(1L, fleetRegistry.getElevators(Elevator.DEFAULT_BANK).get(0).getId());
+        assertTrue(fleetRegistry.getElevators("unknown").isEmpty());
+    }
+
+    @Test
+    void register_ShouldRestorePreviousStateWhenTransactionRollsBack() {
+        // Given
+        fleetRegistry.register(elevator(1L, 1));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        fleetRegistry.register(elevator(1L, 6));
+        fleetRegistry.register(elevator(2L, 3));
+        assertEquals(6, fleetRegistry.find(1L).orElseThrow(AssertionError::new).getCurrentFloor());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertEquals(1, fleetRegistry.find(1L).orElseThrow(AssertionError::new).getCurrentFloor());
+        assertFalse(fleetRegistry.find(2L).isPresent());
+    }
+
+    @Test
+    void pendingCount_ShouldTrackAssignmentsAndCompletions() {
+        // Given
+        fleetRegistry.register(elevator(1L, 1));
+
+        // When
+        fleetRegistry.incrementPending(1L);
+        fleetRegistry.incrementPending(1L);
+        fleetRegistry.incrementPending(1L);
+        fleetRegistry.decrementPending(1L, 2);
+
+        // Then
+        assertEquals(1, fleetRegistry.getPendingCount(1L));
+        fleetRegistry.decrementPending(1L, 5);
+        assertEquals(0, fleetRegistry.getPendingCount(1L)); // never negative
+    }
+
+    @Test
+    void pendingCount_ShouldBeUndoneWhenTransactionRollsBack() {
+        // Given
+        fleetRegistry.register(elevator(1L, 1));
+        fleetRegistry.setPendingCount(1L, 2);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        fleetRegistry.incrementPending(1L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertEquals(2, fleetRegistry.getPendingCount(1L));
+    }
+
+    @Test
+    void visitByDistance_ShouldVisitNearestElevatorsFirstAcrossDirections() {
+        // Given
+        Elevator up = elevator(1L, 4);
+        up.setDirection(Direction.UP);
+        Elevator down = elevator(2L, 9);
+        down.setDirection(Direction.DOWN);
+        Elevator idle = elevator(3L, 6);
+        Elevator far = elevator(4L, 30);
+        fleetRegistry.registerAll(Arrays.asList(up, down, idle, far));
+
+        // When
+        List<Long> visited = new ArrayList<>();
+        fleetRegistry.visitByDistance(Elevator.DEFAULT_BANK, 7, (elevator, distance) -> {
+            visited.add(elevator.getId());
+            return distance < 3;
+        });
+
+        // Then - elevator 4 is never reached
+        assertEquals(Arrays.asList(3L, 2L, 1L), visited);
+    }
+
+    @Test
+    void visitByDistance_ShouldFollowMovesAndSkipFullElevators() {
+        // Given
+        Elevator moving = elevator(1L, 2);
+        Elevator full = elevator(2L, 5);
+        full.setCurrentLoad(10);
+        fleetRegistry.registerAll(Arrays.asList(moving, full));
+
+        // When
+        moving.setCurrentFloor(8);
+        moving.setDirection(Direction.DOWN);
+        fleetRegistry.register(moving);
+
+        // Then
+        List<Integer> floors = new ArrayList<>();
+        fleetRegistry.visitByDistance(Elevator.DEFAULT_BANK, 5, (elevator, distance) -> floors.add(distance));
+        assertEquals(Arrays.asList(3), floors);
+    }
+
+    @Test
+    void visitByDistance_ShouldOnlyVisitElevatorsOfTheGivenBank() {
+        // Given
+        Elevator lobby = elevator(1L, 5);
+        Elevator tower = elevator(2L, 5);
+        tower.setBank("tower-b");
+        fleetRegistry.registerAll(Arrays.asList(lobby, tower));
+
+        // When
+        List<Long> visited = new ArrayList<>();
+        fleetRegistry.visitByDistance("tower-b", 5, (elevator, distance) -> visited.add(elevator.getId()));
+
+        // Then
+        assertEquals(Arrays.asList(2L), visited);
+        assertEquals(1, fleetRegistry.getElevators(Elevator.DEFAULT_BANK).size());
+        List<Long> none = new ArrayList<>();
+        fleetRegistry.visitByDistance("unknown", 5, (elevator, distance) -> none.add(elevator.getId()));
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void changeListener_ShouldBeNotifiedOncePerElevatorAfterCommit() {
+        // Given
+        List<Integer> floors = new ArrayList<>();
+        fleetRegistry.addChangeListener((elevatorId, previous, current) -> floors.add(current.getCurrentFloor()));
+        Elevator elevator = elevator(1L, 3);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        fleetRegistry.register(elevator);
+        elevator.setCurrentFloor(4);
+        fleetRegistry.register(elevator);
+        assertTrue(floors.isEmpty());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Then
+        assertEquals(Collections.singletonList(4), floors);
+    }
+
+    @Test
+    void changeListener_ShouldNotBeNotifiedWhenTransactionRollsBack() {
+        // Given
+        List<Long> changed = new ArrayList<>();
+        fleetRegistry.addChangeListener((elevatorId, previous, current) -> changed.add(elevatorId));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        fleetRegistry.register(elevator(1L, 3));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertTrue(changed.isEmpty());
+    }
+
+    @Test
+    void versions_ShouldOnlyAdvanceAfterCommit() {
+        // Given
+        Elevator first = elevator(1L, 3);
+        first.setVersion(fleetRegistry.nextVersion());
+        fleetRegistry.register(first);
+        Elevator second = elevator(2L, 5);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        second.setVersion(fleetRegistry.nextVersion());
+        fleetRegistry.register(second);
+
+        // Then - 未提交的变化不影响条件请求
+        assertEquals(1L, fleetRegistry.getFleetVersion());
+        assertFalse(fleetRegistry.getVersion(2L).isPresent());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        assertEquals(2L, fleetRegistry.getFleetVersion());
+        assertEquals(Collections.singletonList(2L), fleetRegistry.findChangedSince(1L));
+        assertEquals(Arrays.asList(1L, 2L), fleetRegistry.findChangedSince(0L));
+    }
+
+    @Test
+    void versions_ShouldContinueFromLoadedElevatorsAndAdvanceOnRemoval() {
+        // Given - 重启后从数据库加载的电梯已有版本号
+        Elevator elevator = elevator(1L, 3);
+        elevator.setVersion(10L);
+        fleetRegistry.register(elevator);
+
+        // When
+        fleetRegistry.unregister(1L);
+
+        // Then
+        assertEquals(11L, fleetRegistry.getFleetVersion());
+        assertEquals(12L, fleetRegistry.nextVersion());
+        assertFalse(fleetRegistry.getVersion(1L).isPresent());
+    }
+
+    private Elevator elevator(Long id, int floor) {
+        Elevator elevator = new Elevator();
+        elevator.setId(id);
+        elevator.setMaxCapacity(10);
+        elevator.setCurrentFloor(floor);
+        return elevator;
+    }
+}
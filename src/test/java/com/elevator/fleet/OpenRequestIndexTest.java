@@ -0,0 +1,208 @@
+package com.elevator.fleet;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.model.Direction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenRequestIndexTest {
+
+    private OpenRequestIndex index;
+    private Elevator elevator;
+
+    @BeforeEach
+    void setUp() {
+        index = new OpenRequestIndex();
+        elevator = new Elevator();
+        elevator.setId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void register_ShouldIndexWaitingRequestsByOriginFloor() {
+        // Given
+        Request first = request(1L, 3, 7);
+        Request second = request(2L, 3, 1);
+        Request other = request(3L, 5, 9);
+
+        // When
+        index.register(first);
+        index.register(second);
+        index.register(other);
+
+        // Then
+        assertEquals(Arrays.asList(1L, 2L), index.requestIdsAt(1L, 3));
+        assertEquals(Collections.singletonList(3L), index.requestIdsAt(1L, 5));
+        assertTrue(index.requestIdsAt(1L, 7).isEmpty());
+        assertEquals(3, index.openCount(1L));
+    }
+
+    @Test
+    void register_ShouldMoveRequestToDestinationFloorAfterPickup() {
+        // Given
+        Request request = request(1L, 3, 7);
+        index.register(request);
+
+        // When
+        request.setPassengerPickedUp(true);
+        index.register(request);
+
+        // Then
+        assertTrue(index.requestIdsAt(1L, 3).isEmpty());
+        assertEquals(Collections.singletonList(1L), index.requestIdsAt(1L, 7));
+        assertEquals(1, index.openCount(1L));
+    }
+
+    @Test
+    void register_ShouldDropCompletedRequests() {
+        // Given
+        Request request = request(1L, 3, 7);
+        index.register(request);
+
+        // When
+        request.setPassengerPickedUp(true);
+        request.setCompleted(true);
+        index.register(request);
+
+        // Then
+        assertTrue(index.requestIdsAt(1L, 7).isEmpty());
+        assertEquals(0, index.openCount(1L));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void register_ShouldRestorePreviousStateWhenTransactionRollsBack() {
+        // Given
+        Request request = request(1L, 3, 7);
+        index.register(request);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        request.setPassengerPickedUp(true);
+        index.register(request);
+        index.register(request(2L, 4, 6));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertEquals(Collections.singletonList(1L), index.requestIdsAt(1L, 3));
+        assertTrue(index.requestIdsAt(1L, 7).isEmpty());
+        assertTrue(index.requestIdsAt(1L, 4).isEmpty());
+        assertEquals(1, index.openCount(1L));
+    }
+
+    @Test
+    void findWaitingElevator_ShouldMatchFloorAndDirectionUntilPickup() {
+        // Given
+        Request request = request(1L, 3, 7);
+        index.register(request);
+
+        // When & Then
+        assertEquals(Optional.of(1L), index.findWaitingElevator(Elevator.DEFAULT_BANK, 3, Direction.UP));
+        assertFalse(index.findWaitingElevator(Elevator.DEFAULT_BANK, 3, Direction.DOWN).isPresent());
+        assertFalse(index.findWaitingElevator(Elevator.DEFAULT_BANK, 4, Direction.UP).isPresent());
+
+        request.setPassengerPickedUp(true);
+        index.register(request);
+        assertFalse(index.findWaitingElevator(Elevator.DEFAULT_BANK, 3, Direction.UP).isPresent());
+    }
+
+    @Test
+    void findWaitingElevator_ShouldKeepElevatorWhileAnyCallStillWaits() {
+        // Given
+        index.register(request(1L, 5, 9));
+        index.register(request(2L, 5, 8));
+
+        // When
+        index.unregister(1L);
+
+        // Then
+        assertEquals(Optional.of(1L), index.findWaitingElevator(Elevator.DEFAULT_BANK, 5, Direction.UP));
+        index.unregister(2L);
+        assertFalse(index.findWaitingElevator(Elevator.DEFAULT_BANK, 5, Direction.UP).isPresent());
+    }
+
+    @Test
+    void findWaitingElevator_ShouldNotMatchCallsFromAnotherBank() {
+        // Given - 另一组同楼层同方向的呼叫
+        Request request = request(1L, 3, 7);
+        request.setBank("tower-b");
+        index.register(request);
+
+        // When & Then
+        assertEquals(Optional.of(1L), index.findWaitingElevator("tower-b", 3, Direction.UP));
+        assertFalse(index.findWaitingElevator(Elevator.DEFAULT_BANK, 3, Direction.UP).isPresent());
+    }
+
+    @Test
+    void unregister_ShouldFindRequestInAnyBankShard() {
+        // Given - 两组的请求分别落在各自的分片
+        Elevator tower = new Elevator();
+        tower.setId(2L);
+        tower.setBank("tower-b");
+        Request towerCall = request(2L, 4, 9);
+        towerCall.setBank("tower-b");
+        towerCall.setElevator(tower);
+        index.register(request(1L, 3, 7));
+        index.register(towerCall);
+
+        // When
+        index.unregister(2L);
+
+        // Then
+        assertEquals(1, index.size());
+        assertEquals(0, index.openCount(2L));
+        assertEquals(Collections.singletonList(1L), index.requestIdsAt(1L, 3));
+    }
+
+    @Test
+    void replaceElevator_ShouldRebuildOneElevatorFromDatabaseState() {
+        // Given - 本副本的索引中有两个请求，数据库中其中一个已被其他副本完成，另有一个新分配的请求
+        index.register(request(1L, 3, 7));
+        index.register(request(2L, 5, 9));
+        Elevator other = new Elevator();
+        other.setId(2L);
+        Request untouched = request(3L, 3, 8);
+        untouched.setElevator(other);
+        index.register(untouched);
+        Request riding = request(1L, 3, 7);
+        riding.setPassengerPickedUp(true);
+
+        // When
+        index.replaceElevator(1L, Arrays.asList(riding, request(4L, 6, 2)));
+
+        // Then
+        assertEquals(Collections.singletonList(1L), index.requestIdsAt(1L, 7));
+        assertEquals(Collections.singletonList(4L), index.requestIdsAt(1L, 6));
+        assertTrue(index.requestIdsAt(1L, 5).isEmpty());
+        assertEquals(2, index.openCount(1L));
+        assertEquals(Collections.singletonList(3L), index.requestIdsAt(2L, 3));
+    }
+
+    private Request request(Long id, int origin, int destination) {
+        Request request = new Request();
+        request.setId(id);
+        request.setOriginFloor(origin);
+        request.setDestinationFloor(destination);
+        request.setDirection(destination > origin ? Direction.UP : Direction.DOWN);
+        request.setElevator(elevator);
+        return request;
+    }
+}
@@ -0,0 +1,135 @@
+package com.elevator.idempotency;
+
+import com.elevator.model.HallCall;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyProperties properties;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new IdempotencyProperties();
+        properties.setMaxEntries(2);
+        properties.setTtlMillis(60_000);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void execute_ShouldReplayFirstResultForSameKey() {
+        // Given
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>("request", properties, meterRegistry);
+
+        // When
+        int first = cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+        int retry = cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(1, retry);
+        assertEquals(1, executions.get());
+        assertEquals(1.0, meterRegistry.get("elevator.idempotency.replays").tag("cache", "request").counter().count());
+    }
+
+    @Test
+    void execute_ShouldRejectKeyReusedWithDifferentParameters() {
+        // Given
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>("request", properties, meterRegistry);
+        cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> cache.execute("key-1", new HallCall(2, 7), executions::incrementAndGet));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ShouldForgetKeyWhenFirstAttemptFails() {
+        // Given
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>("request", properties, meterRegistry);
+        assertThrows(RuntimeException.class, () -> cache.execute("key-1", new HallCall(3, 7), () -> {
+            throw new RuntimeException("No elevators available");
+        }));
+
+        // When
+        int retry = cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+
+        // Then - 失败不会被缓存，重试真正执行
+        assertEquals(1, retry);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ShouldEvictOldestKeysBeyondCapacityAndTtl() {
+        // Given
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>("request", properties, meterRegistry);
+
+        // When
+        cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+        cache.execute("key-2", new HallCall(3, 7), executions::incrementAndGet);
+        cache.execute("key-3", new HallCall(3, 7), executions::incrementAndGet);
+        int retry = cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+
+        // Then - key-1 已被淘汰，重新执行
+        assertEquals(4, retry);
+        assertEquals(2, cache.size());
+
+        properties.setTtlMillis(1);
+        IdempotencyCache<Integer> shortLived = new IdempotencyCache<>("ticket", properties, meterRegistry);
+        shortLived.execute("key-1", new HallCall(3, 7), executions::incrementAndGet);
+        sleep(5);
+        assertEquals(6, shortLived.execute("key-1", new HallCall(3, 7), executions::incrementAndGet));
+    }
+
+    @Test
+    void execute_ShouldMakeConcurrentRetryWaitForInFlightAttempt() throws Exception {
+        // Given
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>("request", properties, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> cache.execute("key-1", new HallCall(3, 7), () -> {
+            started.countDown();
+            await(release);
+            return executions.incrementAndGet();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<Integer> retry = CompletableFuture.supplyAsync(
+                () -> cache.execute("key-1", new HallCall(3, 7), executions::incrementAndGet));
+        release.countDown();
+
+        // Then
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, retry.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
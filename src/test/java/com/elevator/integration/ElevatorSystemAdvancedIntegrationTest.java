@@ -4,11 +4,13 @@ import com.elevator.entity.Elevator;
 import com.elevator.entity.Request;
 import com.elevator.model.Direction;
 import com.elevator.model.State;
+import com.elevator.repository.ElevatorRepository;
 import com.elevator.service.ElevatorService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -28,6 +30,9 @@ class ElevatorSystemAdvancedIntegrationTest {
     @Autowired
     private ElevatorService elevatorService;
 
+    @Autowired
+    private ElevatorRepository elevatorRepository;
+
     @BeforeEach
     void setUp() {
         // Clean setup for each test
@@ -94,6 +99,54 @@ class ElevatorSystemAdvancedIntegrationTest {
         assertTrue(pendingRequests.size() <= 5, "Most requests should be completed");
     }
 
+    @Test
+    void testConcurrentRequestsAndStepsKeepEveryStop() throws Exception {
+        // Given - 一部电梯一边步进一边接收新呼叫，两者都会修改停靠点
+        Elevator elevator = elevatorService.createElevator(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        CompletableFuture<?> stepping = CompletableFuture.runAsync(() -> {
+            for (int step = 0; step < 200; step++) {
+                elevatorService.processNextStep(elevator.getId());
+            }
+        }, executor);
+        CompletableFuture<?>[] futures = new CompletableFuture[40];
+        for (int i = 0; i < 40; i++) {
+            final int requestId = i;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                int origin = (requestId * 7) % 10 + 1;
+                int dest = origin == 10 ? 1 : origin + 1;
+                elevatorService.createRequest(origin, dest);
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get(30, TimeUnit.SECONDS);
+        stepping.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        elevatorService.advanceUntilIdle(elevator.getId());
+
+        // Then - 没有停靠点被覆盖丢失，所有请求都能完成
+        assertTrue(elevatorService.getPendingRequests(elevator.getId()).isEmpty());
+        assertEquals(0, elevatorService.getPendingRequestCount(elevator.getId()));
+    }
+
+    @Test
+    void testStaleElevatorWriteIsRejectedByVersionCheck() {
+        // Given - 另一个副本在本次修改之前读到了电梯
+        Elevator elevator = elevatorService.createElevator(10);
+        Elevator stale = elevatorRepository.findById(elevator.getId()).get();
+
+        // When - 本副本先提交了新的停靠点
+        elevatorService.createRequest(3, 7);
+        stale.setCurrentFloor(9);
+
+        // Then - 旧版本的写回被拒绝，已提交的停靠点不会被覆盖
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> elevatorRepository.save(stale));
+        Elevator current = elevatorService.getElevator(elevator.getId());
+        assertTrue(current.getStops().contains(3));
+        assertEquals(1, current.getCurrentFloor());
+    }
+
     @Test
     void testElevatorLoadBalancing() {
         // Given - Create multiple elevators
@@ -0,0 +1,151 @@
+package com.elevator.integration;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.fleet.FleetRegistry;
+import com.elevator.fleet.OpenRequestIndex;
+import com.elevator.model.StepReport;
+import com.elevator.model.StopSet;
+import com.elevator.repository.RequestRepository;
+import com.elevator.service.ElevatorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// 用另一个连接直接改写数据库，模拟共用同一数据库的另一个副本
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ReplicaConflictIntegrationTest {
+
+    @Autowired
+    private ElevatorService elevatorService;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private FleetRegistry fleetRegistry;
+
+    @SpyBean
+    private OpenRequestIndex openRequestIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void createRequest_ShouldRetryAfterAnotherReplicaCommitsSameElevator() {
+        // Given - 本次事务插入请求之后、提交之前，另一个副本给同一电梯分配了9楼的呼叫并先提交
+        Elevator elevator = elevatorService.createElevator(10);
+        AtomicBoolean interleaved = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (interleaved.compareAndSet(false, true)) {
+                anotherReplicaAssigns(elevator.getId(), 9, 2);
+            }
+            return invocation.callRealMethod();
+        }).when(openRequestIndex).register(any(Request.class));
+
+        // When
+        Request created = elevatorService.createRequest(3, 7);
+
+        // Then - 第一次提交因版本冲突回滚，重试在同步后的电梯上成功，两个副本的停靠点都保留
+        assertEquals(elevator.getId(), created.getElevator().getId());
+        assertEquals(2L, requestRepository.count());
+        StopSet stops = stopsInDatabase(elevator.getId());
+        assertTrue(stops.hasFloor(3));
+        assertTrue(stops.hasFloor(9));
+        assertEquals(revisionInDatabase(elevator.getId()), fleetRegistry.find(elevator.getId()).get().getRevision());
+
+        // 回滚的第一次尝试没有留在索引和计数中，另一个副本的请求已同步进来
+        assertEquals(2, openRequestIndex.openCount(elevator.getId()));
+        assertEquals(2, fleetRegistry.getPendingCount(elevator.getId()));
+        assertEquals(1, openRequestIndex.requestIdsAt(elevator.getId(), 9).size());
+        assertEquals(2.0, counter("elevator.optimistic.attempts", "create-request"));
+        assertEquals(1.0, counter("elevator.optimistic.conflicts", "create-request"));
+    }
+
+    @Test
+    void advance_ShouldServeRequestAssignedByAnotherReplica() {
+        // Given - 另一个副本给本副本的电梯分配了呼叫，本副本的索引中还没有它
+        Elevator elevator = elevatorService.createElevator(10);
+        elevatorService.createRequest(3, 7);
+        anotherReplicaAssigns(elevator.getId(), 5, 2);
+
+        // When
+        StepReport report = elevatorService.advanceUntilIdle(elevator.getId());
+
+        // Then - 推进前同步了电梯，两个副本的请求都被服务，没有请求滞留
+        assertEquals(2, report.getCompletedRequests());
+        assertEquals(0, report.getPendingRequests());
+        assertTrue(elevatorService.getPendingRequests(elevator.getId()).isEmpty());
+        assertEquals(0, fleetRegistry.getPendingCount(elevator.getId()));
+        assertEquals(1.0, counter("elevator.optimistic.conflicts", "advance"));
+        assertEquals(0.0, counter("elevator.optimistic.exhausted", "advance"));
+    }
+
+    @Test
+    void advanceAll_ShouldPickUpElevatorsChangedByAnotherReplica() {
+        // Given - 本副本的电梯都空闲，另一个副本给其中一部分配了呼叫
+        Elevator idle = elevatorService.createElevator(10);
+        Elevator assigned = elevatorService.createElevator(10);
+        anotherReplicaAssigns(assigned.getId(), 4, 8);
+
+        // When
+        for (int tick = 0; tick < 20; tick++) {
+            elevatorService.advanceAll(1);
+        }
+
+        // Then
+        assertTrue(elevatorService.getPendingRequests(assigned.getId()).isEmpty());
+        assertEquals(1, elevatorService.getElevator(idle.getId()).getCurrentFloor());
+        assertEquals(8, elevatorService.getElevator(assigned.getId()).getCurrentFloor());
+    }
+
+    // 在独立的连接上插入请求、加上停靠点并推进电梯行的版本，与另一个副本提交的结果相同
+    private void anotherReplicaAssigns(Long elevatorId, int originFloor, int destinationFloor) {
+        try {
+            CompletableFuture.runAsync(() -> {
+                jdbcTemplate.update("insert into requests (bank, origin_floor, destination_floor, direction, "
+                                + "completed, passenger_picked_up, created_at, elevator_id) "
+                                + "values (?, ?, ?, ?, false, false, current_timestamp, ?)",
+                        Elevator.DEFAULT_BANK, originFloor, destinationFloor,
+                        destinationFloor > originFloor ? "UP" : "DOWN", elevatorId);
+                StopSet stops = stopsInDatabase(elevatorId);
+                stops.addFloor(originFloor);
+                jdbcTemplate.update("update elevators set stop_bitmap = ?, revision = revision + 1 where id = ?",
+                        stops.toBytes(), elevatorId);
+            }).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private StopSet stopsInDatabase(Long elevatorId) {
+        return StopSet.fromBytes(jdbcTemplate.queryForObject(
+                "select stop_bitmap from elevators where id = ?", byte[].class, elevatorId));
+    }
+
+    private long revisionInDatabase(Long elevatorId) {
+        return jdbcTemplate.queryForObject("select revision from elevators where id = ?", Long.class, elevatorId);
+    }
+
+    private double counter(String name, String operation) {
+        return meterRegistry.get(name).tag("operation", operation).counter().count();
+    }
+}
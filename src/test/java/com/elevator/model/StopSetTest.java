@@ -0,0 +1,94 @@
+package com.elevator.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopSetTest {
+
+    private StopSet stops;
+
+    @BeforeEach
+    void setUp() {
+        stops = new StopSet();
+    }
+
+    @Test
+    void addAndRemove_ShouldTrackFloorsWithoutDuplicates() {
+        assertTrue(stops.addFloor(5));
+        assertFalse(stops.addFloor(5));
+        assertTrue(stops.addFloor(-3));
+        assertTrue(stops.addFloor(200)); // grows beyond the initial words
+
+        assertEquals(3, stops.size());
+        assertTrue(stops.hasFloor(200));
+        assertTrue(stops.removeFloor(5));
+        assertFalse(stops.removeFloor(5));
+        assertArrayEquals(new int[]{-3, 200}, stops.toFloorArray());
+    }
+
+    @Test
+    void nextAtOrAbove_ShouldFindClosestStopAcrossWords() {
+        stops.addFloor(2);
+        stops.addFloor(70);
+        stops.addFloor(130);
+
+        assertEquals(2, stops.nextAtOrAbove(2));
+        assertEquals(70, stops.nextAtOrAbove(3));
+        assertEquals(130, stops.nextAtOrAbove(71));
+        assertEquals(StopSet.NONE, stops.nextAtOrAbove(131));
+    }
+
+    @Test
+    void nextAtOrBelow_ShouldFindClosestStopAcrossWords() {
+        stops.addFloor(2);
+        stops.addFloor(70);
+
+        assertEquals(70, stops.nextAtOrBelow(500));
+        assertEquals(70, stops.nextAtOrBelow(70));
+        assertEquals(2, stops.nextAtOrBelow(69));
+        assertEquals(StopSet.NONE, stops.nextAtOrBelow(1));
+    }
+
+    @Test
+    void nearest_ShouldPreferLowerFloorOnTie() {
+        stops.addFloor(3);
+        stops.addFloor(7);
+
+        assertEquals(3, stops.nearest(5));
+        assertEquals(7, stops.nearest(6));
+        assertEquals(3, stops.nearest(-10));
+    }
+
+    @Test
+    void toBytes_ShouldEncodeCompactlyRelativeToLowestStop() {
+        stops.addFloor(1);
+        stops.addFloor(5);
+        stops.addFloor(10);
+
+        // one header byte for floor 1, two bitmap bytes for floors 1..10
+        byte[] bytes = stops.toBytes();
+        assertEquals(3, bytes.length);
+        assertEquals(stops, StopSet.fromBytes(bytes));
+    }
+
+    @Test
+    void fromBytes_ShouldRoundTripBasementsAndTallBuildings() {
+        Set<Integer> floors = new HashSet<>(Arrays.asList(-64, -3, 0, 63, 64, 127, 300));
+        floors.forEach(stops::addFloor);
+
+        assertEquals(floors, StopSet.fromBytes(stops.toBytes()));
+        assertEquals(0, new StopSet().toBytes().length);
+        assertTrue(StopSet.fromBytes(null).isEmpty());
+    }
+
+    @Test
+    void addFloor_ShouldRejectFloorsBelowSupportedRange() {
+        assertThrows(IllegalArgumentException.class, () -> stops.addFloor(StopSet.MIN_FLOOR - 1));
+    }
+}
@@ -2,7 +2,9 @@ package com.elevator.performance;
 
 import com.elevator.entity.Elevator;
 import com.elevator.entity.Request;
+import com.elevator.model.HallCall;
 import com.elevator.service.ElevatorService;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -19,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @ActiveProfiles("test")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Slf4j
 class ElevatorPerformanceTest {
 
     @Autowired
@@ -85,4 +88,29 @@ class ElevatorPerformanceTest {
         // Then
         assertTrue(selectionTime < 2000, "Elevator selection should be fast even with many elevators");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSingleRequestIngestThroughput() {
+        // Given - 逐条 createRequest 的对照组，与 RequestIngestPerformanceTest 使用相同的请求序列
+        for (int i = 0; i < 20; i++) {
+            elevatorService.createElevator(10);
+        }
+        List<HallCall> warmUp = RequestIngestPerformanceTest.randomCalls(RequestIngestPerformanceTest.WARM_UP_REQUESTS);
+        warmUp.forEach(call -> elevatorService.createRequest(call.getOriginFloor(), call.getDestinationFloor()));
+        List<HallCall> calls = RequestIngestPerformanceTest.randomCalls(RequestIngestPerformanceTest.NUMBER_OF_REQUESTS);
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        // When
+        calls.forEach(call -> elevatorService.createRequest(call.getOriginFloor(), call.getDestinationFloor()));
+
+        stopWatch.stop();
+
+        // Then
+        assertTrue(stopWatch.getTotalTimeMillis() < 60000, "Single-request ingest should complete within a minute");
+        log.info("Single-request path: {} requests in {} ms ({} req/s)",
+                calls.size(), stopWatch.getTotalTimeMillis(),
+                calls.size() * 1000L / Math.max(1, stopWatch.getTotalTimeMillis()));
+    }
+}
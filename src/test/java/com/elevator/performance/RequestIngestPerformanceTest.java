@@ -0,0 +1,95 @@
+package com.elevator.performance;
+
+import com.elevator.model.HallCall;
+import com.elevator.repository.RequestRepository;
+import com.elevator.service.ElevatorService;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.StopWatch;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ingest 配置下的批量导入：池化主键 + JDBC批量插入；逐条 createRequest 的对照见 ElevatorPerformanceTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles({"test", "ingest"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Slf4j
+class RequestIngestPerformanceTest {
+
+    static final int NUMBER_OF_REQUESTS = 10_000;
+    static final int WARM_UP_REQUESTS = 5_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Autowired
+    private ElevatorService elevatorService;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void batchedIngest_ShouldInsertRequestsInJdbcBatches() {
+        // Given
+        for (int i = 0; i < 20; i++) {
+            elevatorService.createElevator(10);
+        }
+        ingest(randomCalls(WARM_UP_REQUESTS));
+        List<HallCall> calls = randomCalls(NUMBER_OF_REQUESTS);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        // When
+        int created = ingest(calls);
+
+        stopWatch.stop();
+
+        // Then
+        assertEquals(NUMBER_OF_REQUESTS, created);
+        assertEquals(WARM_UP_REQUESTS + NUMBER_OF_REQUESTS, requestRepository.count());
+        // 逐条插入需要一万条语句，按批发送后语句数至少降低一个数量级
+        assertTrue(statistics.getPrepareStatementCount() < NUMBER_OF_REQUESTS / 10,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+        log.info("Batched ingest: {} requests in {} ms ({} req/s), {} statements",
+                NUMBER_OF_REQUESTS, stopWatch.getTotalTimeMillis(),
+                NUMBER_OF_REQUESTS * 1000L / Math.max(1, stopWatch.getTotalTimeMillis()),
+                statistics.getPrepareStatementCount());
+    }
+
+    private int ingest(List<HallCall> calls) {
+        int created = 0;
+        for (int from = 0; from < calls.size(); from += CHUNK_SIZE) {
+            created += elevatorService.createRequests(calls.subList(from, Math.min(from + CHUNK_SIZE, calls.size()))).size();
+        }
+        return created;
+    }
+
+    static List<HallCall> randomCalls(int count) {
+        Random random = new Random(42);
+        List<HallCall> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int origin = random.nextInt(10) + 1;
+            int destination = random.nextInt(10) + 1;
+            while (destination == origin) {
+                destination = random.nextInt(10) + 1;
+            }
+            calls.add(new HallCall(origin, destination));
+        }
+        return calls;
+    }
+}
@@ -0,0 +1,199 @@
+package com.elevator.persistence;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.fleet.FleetRegistry;
+import com.elevator.model.StopSet;
+import com.elevator.service.ElevatorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "elevator.persistence.mode=write-behind",
+        "elevator.persistence.flush-interval-millis=3600000"
+})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class WriteBehindStoreTest {
+
+    @Autowired
+    private ElevatorService elevatorService;
+
+    @Autowired
+    private WriteBehindStore writeBehindStore;
+
+    @Autowired
+    private PersistenceProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FleetRegistry fleetRegistry;
+
+    @Test
+    void advance_ShouldServeStateFromMemoryUntilFlushed() {
+        // Given
+        Elevator elevator = elevatorService.createElevator(10);
+        elevatorService.createRequest(3, 7);
+
+        // When
+        elevatorService.advance(elevator.getId(), 1);
+
+        // Then - 内存中已移动，数据库尚未写入
+        assertEquals(3, elevatorService.getElevator(elevator.getId()).getCurrentFloor());
+        assertEquals(1, currentFloorInDatabase(elevator.getId()));
+        assertTrue(writeBehindStore.pendingCount() > 0);
+
+        // When
+        int flushed = writeBehindStore.flush();
+
+        // Then
+        assertTrue(flushed > 0);
+        assertEquals(0, writeBehindStore.pendingCount());
+        assertEquals(3, currentFloorInDatabase(elevator.getId()));
+        assertEquals(1, meterRegistry.get("elevator.persistence.flush").timer().count());
+        assertTrue(meterRegistry.get("elevator.persistence.flush.lag").timer().count() >= 1);
+    }
+
+    @Test
+    void advance_ShouldAssignVersionsAndFlushThem() {
+        // Given
+        Elevator elevator = elevatorService.createElevator(10);
+        elevatorService.createRequest(3, 7);
+        long before = elevatorService.getElevator(elevator.getId()).getVersion();
+
+        // When
+        elevatorService.advance(elevator.getId(), 1);
+        long moved = elevatorService.getElevator(elevator.getId()).getVersion();
+        writeBehindStore.flush();
+
+        // Then - 状态变化时分配新版本号，随刷写一起落库
+        assertTrue(moved > before);
+        assertEquals(moved, (long) elevatorService.findElevatorVersion(elevator.getId()).get());
+        assertEquals(moved, jdbcTemplate.queryForObject(
+                "select version from elevators where id = ?", Long.class, elevator.getId()));
+    }
+
+    @Test
+    void advance_ShouldCoalesceChangesAcrossTicks() {
+        // Given
+        Elevator elevator = elevatorService.createElevator(10);
+        Request request = elevatorService.createRequest(3, 7);
+
+        // When
+        elevatorService.advanceUntilIdle(elevator.getId());
+
+        // Then - 多次变化合并为每个实体一条待写记录
+        assertEquals(2, writeBehindStore.pendingCount());
+        assertTrue(elevatorService.getPendingRequests(elevator.getId()).isEmpty());
+        assertFalse(completedInDatabase(request.getId()));
+
+        writeBehindStore.flush();
+        assertTrue(completedInDatabase(request.getId()));
+        assertEquals(7, currentFloorInDatabase(elevator.getId()));
+    }
+
+    @Test
+    void onCompletionDurability_ShouldFlushWhenRequestCompletes() {
+        // Given
+        properties.setDurability(PersistenceProperties.Durability.ON_COMPLETION);
+        Elevator elevator = elevatorService.createElevator(10);
+        Request request = elevatorService.createRequest(3, 7);
+
+        // When
+        elevatorService.advanceUntilIdle(elevator.getId());
+
+        // Then
+        assertTrue(completedInDatabase(request.getId()));
+    }
+
+    @Test
+    void createRequest_ShouldDiscardStagedChangesWhenTransactionRollsBack() {
+        // Given
+        Elevator elevator = elevatorService.createElevator(10);
+
+        // When - 电梯的新停靠点已暂存，之后同一事务失败
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            elevatorService.createRequest(3, 7);
+            throw new IllegalStateException("request insert failed");
+        }));
+
+        // Then - 回滚的停靠点不会进入待刷写集合，也不会被刷写到数据库
+        assertEquals(0, writeBehindStore.pendingCount());
+        assertFalse(elevatorService.getElevator(elevator.getId()).getStops().hasFloor(3));
+        writeBehindStore.flush();
+        assertFalse(StopSet.fromBytes(jdbcTemplate.queryForObject("select stop_bitmap from elevators where id = ?",
+                byte[].class, elevator.getId())).hasFloor(3));
+    }
+
+    @Test
+    void createRequest_ShouldPublishStagedChangesOnlyAfterCommit() {
+        // Given
+        Elevator elevator = elevatorService.createElevator(10);
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            elevatorService.createRequest(3, 7);
+
+            // Then - 事务内可以读到自己暂存的变化，但尚未进入待刷写集合
+            assertTrue(elevatorService.getElevator(elevator.getId()).getStops().hasFloor(3));
+            assertEquals(0, writeBehindStore.pendingCount());
+        });
+
+        // Then
+        assertEquals(1, writeBehindStore.pendingCount());
+        assertTrue(elevatorService.getElevator(elevator.getId()).getStops().hasFloor(3));
+    }
+
+    @Test
+    void flush_ShouldDiscardElevatorChangesWhenAnotherWriterUpdatedTheRow() throws Exception {
+        // Given - 第一次刷写正常，之后本副本又修改了电梯
+        Elevator elevator = elevatorService.createElevator(10);
+        elevatorService.createRequest(3, 7);
+        elevatorService.advance(elevator.getId(), 1);
+        writeBehindStore.flush();
+        elevatorService.advance(elevator.getId(), 1);
+
+        // When - 另一个写入方在本副本刷写之前改写了同一电梯
+        jdbcTemplate.update("update elevators set current_floor = 9, revision = revision + 1 where id = ?",
+                elevator.getId());
+        writeBehindStore.flush();
+
+        // Then - 版本条件不成立，本副本的变化被放弃，不覆盖对方的写入，随后从数据库重新同步
+        assertEquals(9, currentFloorInDatabase(elevator.getId()));
+        assertEquals(1.0, meterRegistry.get("elevator.persistence.flush.conflicts").counter().count());
+        assertEquals(0, writeBehindStore.pendingCount());
+        assertEquals(9, elevatorService.getElevator(elevator.getId()).getCurrentFloor());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (fleetRegistry.find(elevator.getId()).get().getCurrentFloor() != 9
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(9, fleetRegistry.find(elevator.getId()).get().getCurrentFloor());
+    }
+
+    private int currentFloorInDatabase(Long elevatorId) {
+        return jdbcTemplate.queryForObject("select current_floor from elevators where id = ?",
+                Integer.class, elevatorId);
+    }
+
+    private boolean completedInDatabase(Long requestId) {
+        return jdbcTemplate.queryForObject("select completed from requests where id = ?",
+                Boolean.class, requestId);
+    }
+}
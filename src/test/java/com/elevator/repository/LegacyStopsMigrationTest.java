@@ -0,0 +1,55 @@
+package com.elevator.repository;
+
+import com.elevator.entity.Elevator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LegacyStopsMigrationTest {
+
+    @Autowired
+    private LegacyStopsMigration migration;
+
+    @Autowired
+    private ElevatorRepository elevatorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrate_ShouldMoveLegacyStopsIntoBitmapColumnAndDropTable() {
+        // Given - an elevator persisted with the old element-collection layout
+        Elevator legacy = elevatorRepository.save(new Elevator());
+        Elevator current = new Elevator();
+        current.setStops(new HashSet<>(Arrays.asList(9)));
+        current = elevatorRepository.save(current);
+
+        jdbcTemplate.execute("create table elevator_stops (elevator_id bigint not null, stops integer)");
+        jdbcTemplate.update("update elevators set stop_bitmap = null where id = ?", legacy.getId());
+        jdbcTemplate.update("insert into elevator_stops values (?, 3), (?, 7), (?, 4)",
+                legacy.getId(), legacy.getId(), current.getId());
+
+        // When
+        migration.migrate();
+
+        // Then
+        Elevator migrated = elevatorRepository.findById(legacy.getId()).orElseThrow(AssertionError::new);
+        assertEquals(new HashSet<>(Arrays.asList(3, 7)), migrated.getStops());
+        Elevator untouched = elevatorRepository.findById(current.getId()).orElseThrow(AssertionError::new);
+        assertEquals(new HashSet<>(Arrays.asList(9)), untouched.getStops());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where upper(table_name) = 'ELEVATOR_STOPS'", Integer.class));
+
+        // running again is a no-op
+        migration.migrate();
+    }
+}
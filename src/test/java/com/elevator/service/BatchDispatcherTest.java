@@ -0,0 +1,121 @@
+package com.elevator.service;
+
+import com.elevator.dispatch.BuildingTopology;
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.dispatch.NearestCarStrategy;
+import com.elevator.entity.Request;
+import com.elevator.model.HallCall;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchDispatcherTest {
+
+    @Mock
+    private ElevatorService elevatorService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchDispatcher dispatcher;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        BuildingTopology building = new BuildingTopology();
+        building.setFloors(10);
+        building.setLowestFloor(1);
+        BatchDispatchProperties properties = new BatchDispatchProperties();
+        properties.setWindowMillis(50);
+        properties.setMaxSize(3);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new BatchDispatcher(elevatorService, new ElevatorBanks(building, new NearestCarStrategy(building)),
+                properties, meterRegistry);
+        callers = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void submit_ShouldAssignFullWindowTogether() throws Exception {
+        // Given
+        when(elevatorService.createRequestsJointly(anyList())).thenAnswer(invocation -> toRequests(invocation.getArgument(0)));
+
+        // When
+        List<CompletableFuture<Request>> results = new ArrayList<>();
+        for (int floor = 2; floor <= 4; floor++) {
+            int origin = floor;
+            results.add(CompletableFuture.supplyAsync(() -> dispatcher.submit(new HallCall(origin, 9)), callers));
+        }
+
+        // Then - 3个呼叫凑满一批，一次联合指派，每个调用方拿到自己的请求
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(9, results.get(i).get(5, TimeUnit.SECONDS).getDestinationFloor());
+        }
+        ArgumentCaptor<List<HallCall>> batch = ArgumentCaptor.forClass(List.class);
+        verify(elevatorService, times(1)).createRequestsJointly(batch.capture());
+        assertEquals(3, batch.getValue().size());
+        assertEquals(1, meterRegistry.get("elevator.dispatch.batch.size").summary().count());
+        assertEquals(3, meterRegistry.get("elevator.dispatch.batch.wait").timer().count());
+    }
+
+    @Test
+    void submit_ShouldDispatchPartialWindowWhenItCloses() {
+        // Given
+        when(elevatorService.createRequestsJointly(anyList())).thenAnswer(invocation -> toRequests(invocation.getArgument(0)));
+
+        // When
+        Request request = dispatcher.submit(new HallCall(3, 7));
+
+        // Then
+        assertEquals(3, request.getOriginFloor());
+        assertEquals(7, request.getDestinationFloor());
+        verify(elevatorService, times(1)).createRequestsJointly(anyList());
+    }
+
+    @Test
+    void submit_ShouldPropagateDispatchFailureToCaller() {
+        // Given
+        when(elevatorService.createRequestsJointly(anyList())).thenThrow(new RuntimeException("No elevators available"));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> dispatcher.submit(new HallCall(3, 7)));
+        assertEquals("No elevators available", exception.getMessage());
+    }
+
+    @Test
+    void submit_ShouldRejectInvalidFloorWithoutJoiningWindow() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.submit(new HallCall(0, 7)));
+        verifyNoInteractions(elevatorService);
+    }
+
+    private static List<Request> toRequests(List<HallCall> calls) {
+        return calls.stream().map(call -> {
+            Request request = new Request();
+            request.setOriginFloor(call.getOriginFloor());
+            request.setDestinationFloor(call.getDestinationFloor());
+            return request;
+        }).collect(Collectors.toList());
+    }
+}
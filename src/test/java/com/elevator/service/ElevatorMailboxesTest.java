@@ -0,0 +1,219 @@
+package com.elevator.service;
+
+import com.elevator.entity.Elevator;
+import com.elevator.fleet.FleetRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElevatorMailboxesTest {
+
+    private FleetRegistry fleetRegistry;
+    private ElevatorMailboxes mailboxes;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        fleetRegistry = new FleetRegistry();
+        fleetRegistry.registerAll(Arrays.asList(elevator(1L), elevator(2L)));
+        MailboxProperties properties = new MailboxProperties();
+        properties.setParallelism(4);
+        meterRegistry = new SimpleMeterRegistry();
+        mailboxes = new ElevatorMailboxes(fleetRegistry, properties, meterRegistry);
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailboxes.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void call_ShouldApplyOneElevatorsMutationsOneAtATimeInArrivalOrder() throws Exception {
+        // Given
+        AtomicBoolean running = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+
+        // When - 同一个调用方依次提交，另有多个调用方并发提交
+        List<CompletableFuture<?>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int sequence = i;
+            results.add(CompletableFuture.runAsync(() -> mailboxes.call(1L, () -> {
+                if (!running.compareAndSet(false, true)) {
+                    overlapped.set(true);
+                }
+                applied.add(sequence);
+                running.set(false);
+                return null;
+            }), callers));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        List<Integer> ordered = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int sequence = i;
+            mailboxes.call(2L, () -> ordered.add(sequence));
+        }
+
+        // Then
+        assertFalse(overlapped.get());
+        assertEquals(200, applied.size());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), ordered);
+        assertEquals(0.0, meterRegistry.get("elevator.mailbox.queued").gauge().value());
+    }
+
+    @Test
+    void call_ShouldRunDifferentElevatorsInParallel() throws Exception {
+        // Given - 两部电梯的任务必须同时运行才能通过栅栏
+        CyclicBarrier together = new CyclicBarrier(2);
+
+        // When
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(
+                () -> mailboxes.call(1L, () -> awaitBarrier(together)), callers);
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(
+                () -> mailboxes.call(2L, () -> awaitBarrier(together)), callers);
+
+        // Then
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void call_ShouldPropagateExceptionToCaller() {
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> mailboxes.call(1L, () -> {
+            throw new RuntimeException("Elevator not found");
+        }));
+        assertEquals("Elevator not found", exception.getMessage());
+    }
+
+    @Test
+    void exclusive_ShouldWaitForRunningMutationsAndHoldBackNewOnes() throws Exception {
+        // Given - 1号电梯的任务正在执行
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fleetWide = new AtomicInteger();
+        CompletableFuture<?> running = CompletableFuture.runAsync(() -> mailboxes.call(1L, () -> {
+            started.countDown();
+            awaitLatch(release);
+            return null;
+        }), callers);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        CountDownLatch exclusiveStarted = new CountDownLatch(1);
+        CountDownLatch exclusiveRelease = new CountDownLatch(1);
+        CompletableFuture<Integer> exclusive = CompletableFuture.supplyAsync(() -> mailboxes.exclusive(Arrays.asList(1L, 2L), () -> {
+            exclusiveStarted.countDown();
+            awaitLatch(exclusiveRelease);
+            return fleetWide.incrementAndGet();
+        }), callers);
+
+        // Then - 独占操作等待正在执行的任务
+        assertFalse(exclusiveStarted.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertTrue(exclusiveStarted.await(5, TimeUnit.SECONDS));
+
+        // 独占期间新到的任务排在后面
+        CompletableFuture<Integer> later = CompletableFuture.supplyAsync(
+                () -> mailboxes.call(1L, fleetWide::get), callers);
+        assertThrows(TimeoutException.class, () -> later.get(100, TimeUnit.MILLISECONDS));
+        exclusiveRelease.countDown();
+        assertEquals(1, exclusive.get(5, TimeUnit.SECONDS));
+        assertEquals(1, later.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void exclusive_ShouldOnlyPauseTheElevatorsItHolds() throws Exception {
+        // Given - 独占1号电梯
+        CountDownLatch exclusiveStarted = new CountDownLatch(1);
+        CountDownLatch exclusiveRelease = new CountDownLatch(1);
+        CompletableFuture<Object> exclusive = CompletableFuture.supplyAsync(
+                () -> mailboxes.exclusive(Collections.singleton(1L), () -> {
+                    exclusiveStarted.countDown();
+                    awaitLatch(exclusiveRelease);
+                    return mailboxes.call(1L, Thread::currentThread);
+                }), callers);
+        assertTrue(exclusiveStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<Integer> held = CompletableFuture.supplyAsync(() -> mailboxes.call(1L, () -> 1), callers);
+        CompletableFuture<Integer> other = CompletableFuture.supplyAsync(() -> mailboxes.call(2L, () -> 2), callers);
+
+        // Then - 2号电梯照常处理，1号电梯的任务等到独占结束
+        assertEquals(2, other.get(5, TimeUnit.SECONDS));
+        assertThrows(TimeoutException.class, () -> held.get(100, TimeUnit.MILLISECONDS));
+        exclusiveRelease.countDown();
+        assertNotNull(exclusive.get(5, TimeUnit.SECONDS));
+        assertEquals(1, held.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void exclusive_ShouldRejectWaitingForElevatorsItDoesNotHold() {
+        // When & Then - 独占期间等待其他电梯可能与另一个独占操作互相等待
+        assertThrows(IllegalStateException.class, () -> mailboxes.exclusive(Collections.singleton(1L),
+                () -> mailboxes.call(2L, () -> null)));
+        assertThrows(IllegalStateException.class, () -> mailboxes.exclusive(Collections.singleton(1L),
+                () -> mailboxes.exclusive(Arrays.asList(1L, 2L), () -> null)));
+        // 独占范围内的电梯在调用线程上直接执行
+        assertTrue(mailboxes.exclusive(Arrays.asList(1L, 2L), () -> mailboxes.call(2L, () -> true)));
+    }
+
+    @Test
+    void call_ShouldRunInlineForUnknownElevatorOrWhenDisabled() {
+        // Given
+        MailboxProperties properties = new MailboxProperties();
+        properties.setEnabled(false);
+        ElevatorMailboxes disabled = new ElevatorMailboxes(fleetRegistry, properties, new SimpleMeterRegistry());
+        Thread caller = Thread.currentThread();
+
+        // When & Then
+        assertSame(caller, mailboxes.call(99L, Thread::currentThread));
+        assertSame(caller, disabled.call(1L, Thread::currentThread));
+        assertSame(caller, disabled.exclusive(Collections.singleton(1L), Thread::currentThread));
+        assertNotSame(caller, mailboxes.call(1L, Thread::currentThread));
+    }
+
+    private static Elevator elevator(Long id) {
+        Elevator elevator = new Elevator();
+        elevator.setId(id);
+        elevator.setMaxCapacity(10);
+        return elevator;
+    }
+
+    private static int awaitBarrier(CyclicBarrier barrier) {
+        try {
+            return barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,22 +1,39 @@
 package com.elevator.service;
 
+import com.elevator.dispatch.BuildingTopology;
+import com.elevator.dispatch.DispatchStrategy;
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.dispatch.NearestCarStrategy;
 import com.elevator.entity.Elevator;
 import com.elevator.entity.Request;
+import com.elevator.fleet.ElevatorSnapshot;
+import com.elevator.fleet.FleetRegistry;
+import com.elevator.fleet.OpenRequestIndex;
 import com.elevator.model.Direction;
+import com.elevator.model.HallCall;
 import com.elevator.model.State;
+import com.elevator.model.StepReport;
+import com.elevator.persistence.WriteBehindStore;
 import com.elevator.repository.ElevatorRepository;
 import com.elevator.repository.RequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -29,6 +46,38 @@ class ElevatorServiceTest {
     @Mock
     private RequestRepository requestRepository;
 
+    @Spy
+    private FleetRegistry fleetRegistry = new FleetRegistry();
+
+    // 默认组之外另有一个30层的 tower-b 组
+    @Spy
+    private BuildingTopology building = withTowerBank();
+
+    @Spy
+    private OpenRequestIndex openRequestIndex = new OpenRequestIndex();
+
+    @Spy
+    private DispatchStrategy dispatchStrategy = new NearestCarStrategy(building);
+
+    @Spy
+    private ElevatorBanks banks = new ElevatorBanks(building, dispatchStrategy);
+
+    @Mock
+    private ExecutorService stepExecutor;
+
+    @Mock
+    private WriteBehindStore writeBehindStore;
+
+    // 单元测试中信箱关闭，修改在调用线程上执行
+    @Spy
+    private ElevatorMailboxes mailboxes = new ElevatorMailboxes(fleetRegistry, inlineMailboxes(), new SimpleMeterRegistry());
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(noBackoff(), new SimpleMeterRegistry());
+
     @InjectMocks
     private ElevatorService elevatorService;
 
@@ -83,7 +132,7 @@ class ElevatorServiceTest {
         elevator2.setMaxCapacity(10);
         elevator2.setCurrentLoad(0);
 
-        when(elevatorRepository.findAll()).thenReturn(Arrays.asList(elevator1, elevator2));
+        fleetRegistry.registerAll(Arrays.asList(elevator1, elevator2));
 
         Request request = new Request();
         request.setOriginFloor(6);
@@ -91,7 +140,7 @@ class ElevatorServiceTest {
         request.setDirection(Direction.UP);
 
         // When
-        Elevator result = elevatorService.findOptimalElevator(request);
+        ElevatorSnapshot result = elevatorService.findOptimalElevator(request);
 
         // Then
         assertEquals(2L, result.getId()); // elevator2 is closer to floor 6
@@ -112,7 +161,7 @@ class ElevatorServiceTest {
         availableElevator.setMaxCapacity(10);
         availableElevator.setCurrentLoad(2);
 
-        when(elevatorRepository.findAll()).thenReturn(Arrays.asList(fullElevator, availableElevator));
+        fleetRegistry.registerAll(Arrays.asList(fullElevator, availableElevator));
 
         Request request = new Request();
         request.setOriginFloor(4);
@@ -120,7 +169,7 @@ class ElevatorServiceTest {
         request.setDirection(Direction.UP);
 
         // When
-        Elevator result = elevatorService.findOptimalElevator(request);
+        ElevatorSnapshot result = elevatorService.findOptimalElevator(request);
 
         // Then
         assertEquals(2L, result.getId()); // Should select available elevator
@@ -128,9 +177,7 @@ class ElevatorServiceTest {
 
     @Test
     void findOptimalElevator_ShouldThrowExceptionWhenNoElevatorsAvailable() {
-        // Given
-        when(elevatorRepository.findAll()).thenReturn(Collections.emptyList());
-
+        // Given - registry is empty
         Request request = new Request();
         request.setOriginFloor(3);
         request.setDestinationFloor(7);
@@ -142,7 +189,8 @@ class ElevatorServiceTest {
     @Test
     void createRequest_ShouldSetCorrectDirection() {
         // Given
-        when(elevatorRepository.findAll()).thenReturn(Collections.singletonList(testElevator));
+        fleetRegistry.register(testElevator);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
         when(elevatorRepository.save(any(Elevator.class))).thenReturn(testElevator);
         when(requestRepository.save(any(Request.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -162,8 +210,8 @@ class ElevatorServiceTest {
     @Test
     void processNextStep_ShouldSetElevatorToIdleWhenNoPendingRequests() {
         // Given
+        fleetRegistry.register(testElevator);
         when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
-        when(requestRepository.findByElevatorIdAndCompletedFalse(1L)).thenReturn(Collections.emptyList());
         when(elevatorRepository.save(any(Elevator.class))).thenReturn(testElevator);
 
         // When
@@ -185,6 +233,148 @@ class ElevatorServiceTest {
         assertThrows(RuntimeException.class, () -> elevatorService.processNextStep(999L));
     }
 
+    @Test
+    void advance_ShouldLoadArrivalFloorRequestsAndSaveOnlyChangedRequests() {
+        // Given
+        fleetRegistry.register(testElevator);
+        fleetRegistry.setPendingCount(1L, 1);
+        testRequest.setOriginFloor(3);
+        testRequest.setDestinationFloor(5);
+        testRequest.setElevator(testElevator);
+        openRequestIndex.register(testRequest);
+        testElevator.getStops().addFloor(3);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(requestRepository.findAllById(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(testRequest));
+
+        // When
+        StepReport report = elevatorService.advance(1L, 10);
+
+        // Then
+        assertEquals(4, report.getTicks());
+        assertEquals(1, report.getCompletedRequests());
+        assertEquals(0, report.getPendingRequests());
+        assertEquals(5, report.getCurrentFloor());
+        assertTrue(testRequest.isCompleted());
+        assertEquals(0, fleetRegistry.getPendingCount(1L));
+        assertEquals(0, openRequestIndex.openCount(1L));
+        // 只在上车楼层加载一次，下车时复用同一对象，从不扫描电梯的全部请求
+        verify(requestRepository, times(1)).findAllById(Collections.singletonList(1L));
+        verify(requestRepository, never()).findByElevatorIdAndCompletedFalse(anyLong());
+        verify(requestRepository, times(1)).saveAll(Collections.singletonList(testRequest));
+        verify(elevatorRepository, times(1)).save(testElevator);
+    }
+
+    @Test
+    void advance_ShouldTouchOnlyRequestsAtArrivalFloor() {
+        // Given
+        testElevator.setCurrentFloor(3);
+        fleetRegistry.register(testElevator);
+        testRequest.setOriginFloor(3);
+        testRequest.setDestinationFloor(5);
+        testRequest.setElevator(testElevator);
+        Request farRequest = new Request();
+        farRequest.setId(2L);
+        farRequest.setOriginFloor(8);
+        farRequest.setDestinationFloor(2);
+        farRequest.setElevator(testElevator);
+        openRequestIndex.register(testRequest);
+        openRequestIndex.register(farRequest);
+        testElevator.getStops().addFloor(3);
+        testElevator.getStops().addFloor(8);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(requestRepository.findAllById(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(testRequest));
+
+        // When
+        StepReport report = elevatorService.advance(1L, 1);
+
+        // Then
+        assertTrue(testRequest.isPassengerPickedUp());
+        assertFalse(farRequest.isPassengerPickedUp());
+        assertEquals(2, report.getPendingRequests());
+        assertEquals(Collections.singletonList(1L), openRequestIndex.requestIdsAt(1L, 5));
+        verify(requestRepository, times(1)).saveAll(Collections.singletonList(testRequest));
+    }
+
+    @Test
+    void advanceAll_ShouldStepEveryElevatorAndSaveInOneBatch() {
+        // Given
+        Elevator idle = new Elevator();
+        idle.setId(2L);
+        idle.setMaxCapacity(10);
+        idle.setCurrentFloor(6);
+        idle.setDirection(Direction.IDLE);
+        idle.setState(State.IDLE);
+        testRequest.setOriginFloor(3);
+        testRequest.setDestinationFloor(5);
+        testRequest.setElevator(testElevator);
+        openRequestIndex.register(testRequest);
+        testElevator.getStops().addFloor(3);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, idle));
+        when(elevatorRepository.findAllById(Collections.singleton(1L)))
+                .thenReturn(new ArrayList<>(Collections.singletonList(testElevator)));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(stepExecutor).execute(any(Runnable.class));
+
+        // When
+        List<StepReport> reports = elevatorService.advanceAll(1);
+
+        // Then - 空闲的2号电梯按状态表报告，不加载、不推进也不写回
+        assertEquals(2, reports.size());
+        assertEquals(1, reports.get(0).getTicks());
+        assertEquals(3, reports.get(0).getCurrentFloor());
+        assertEquals(1, reports.get(0).getPendingRequests());
+        assertEquals(0, reports.get(1).getTicks());
+        assertEquals(6, reports.get(1).getCurrentFloor());
+        verify(stepExecutor, times(1)).execute(any(Runnable.class));
+        verify(elevatorRepository, times(1)).saveAll(Collections.singletonList(testElevator));
+        // 两部电梯当前楼层都没有请求，无需加载任何请求
+        verify(requestRepository, never()).findAllById(anyIterable());
+        verify(requestRepository, never()).saveAll(anyIterable());
+        verify(elevatorRepository, never()).save(any(Elevator.class));
+    }
+
+    @Test
+    void advanceBank_ShouldOnlyStepElevatorsOfThatBank() {
+        // Given - 塔楼组的电梯也有停靠点
+        Elevator tower = new Elevator();
+        tower.setId(2L);
+        tower.setBank("tower-b");
+        tower.setMaxCapacity(10);
+        tower.setCurrentFloor(1);
+        tower.getStops().addFloor(8);
+        testElevator.getStops().addFloor(3);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, tower));
+        when(elevatorRepository.findByBank(Elevator.DEFAULT_BANK))
+                .thenReturn(Collections.singletonList(testElevator));
+        when(elevatorRepository.findAllById(Collections.singleton(1L)))
+                .thenReturn(new ArrayList<>(Collections.singletonList(testElevator)));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(stepExecutor).execute(any(Runnable.class));
+
+        // When
+        List<StepReport> reports = elevatorService.advanceBank(null, 1);
+
+        // Then - 只同步、加载和推进默认组的电梯
+        assertEquals(1, reports.size());
+        assertEquals(1L, reports.get(0).getElevatorId());
+        verify(elevatorRepository, never()).findAll();
+        verify(elevatorRepository, times(1)).saveAll(Collections.singletonList(testElevator));
+        assertEquals(1, fleetRegistry.find(2L).get().getCurrentFloor());
+    }
+
+    @Test
+    void advance_ShouldRejectNonPositiveTicks() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> elevatorService.advance(1L, 0));
+        verifyNoInteractions(elevatorRepository);
+    }
+
     @Test
     void getAllElevators_ShouldReturnAllElevators() {
         // Given
@@ -238,7 +428,8 @@ class ElevatorServiceTest {
     void createRequest_ShouldAddOriginFloorToElevatorStops() {
         // Given
         testElevator.setStops(new HashSet<>());
-        when(elevatorRepository.findAll()).thenReturn(Collections.singletonList(testElevator));
+        fleetRegistry.register(testElevator);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
         when(elevatorRepository.save(any(Elevator.class))).thenReturn(testElevator);
         when(requestRepository.save(any(Request.class))).thenReturn(testRequest);
 
@@ -268,7 +459,7 @@ class ElevatorServiceTest {
         idleElevator.setMaxCapacity(10);
         idleElevator.setCurrentLoad(0);
 
-        when(elevatorRepository.findAll()).thenReturn(Arrays.asList(upElevator, idleElevator));
+        fleetRegistry.registerAll(Arrays.asList(upElevator, idleElevator));
 
         Request upRequest = new Request();
         upRequest.setOriginFloor(5);
@@ -276,9 +467,334 @@ class ElevatorServiceTest {
         upRequest.setDirection(Direction.UP);
 
         // When
-        Elevator result = elevatorService.findOptimalElevator(upRequest);
+        ElevatorSnapshot result = elevatorService.findOptimalElevator(upRequest);
 
         // Then
         assertEquals(1L, result.getId()); // Should prefer elevator going in same direction
     }
-}
\ No newline at end of file
+
+    @Test
+    void findOptimalElevator_ShouldReadFleetFromRegistryWithoutPerElevatorQueries() {
+        // Given
+        Elevator elevator1 = new Elevator();
+        elevator1.setId(1L);
+        elevator1.setCurrentFloor(1);
+        elevator1.setMaxCapacity(10);
+
+        Elevator elevator2 = new Elevator();
+        elevator2.setId(2L);
+        elevator2.setCurrentFloor(9);
+        elevator2.setMaxCapacity(10);
+
+        fleetRegistry.registerAll(Arrays.asList(elevator1, elevator2));
+
+        Request request = new Request();
+        request.setOriginFloor(8);
+        request.setDestinationFloor(2);
+        request.setDirection(Direction.DOWN);
+
+        // When
+        assertEquals(2L, elevatorService.findOptimalElevator(request).getId());
+
+        // Then
+        verify(elevatorRepository, never()).findAll();
+        verify(requestRepository, never()).findByElevatorIdAndCompletedFalse(anyLong());
+        verify(requestRepository, never()).countPendingRequestsByElevator();
+    }
+
+    @Test
+    void findOptimalElevator_ShouldPenalizeIdleElevatorWithPendingRequests() {
+        // Given
+        Elevator busyElevator = new Elevator();
+        busyElevator.setId(1L);
+        busyElevator.setCurrentFloor(4);
+        busyElevator.setMaxCapacity(10);
+
+        Elevator freeElevator = new Elevator();
+        freeElevator.setId(2L);
+        freeElevator.setCurrentFloor(1);
+        freeElevator.setMaxCapacity(10);
+
+        fleetRegistry.registerAll(Arrays.asList(busyElevator, freeElevator));
+        fleetRegistry.setPendingCount(1L, 3);
+
+        Request request = new Request();
+        request.setOriginFloor(4);
+        request.setDestinationFloor(6);
+        request.setDirection(Direction.UP);
+
+        // When
+        ElevatorSnapshot result = elevatorService.findOptimalElevator(request);
+
+        // Then
+        assertEquals(2L, result.getId()); // 0 + 3*2 > 3 + 0
+    }
+
+    @Test
+    void createRequest_ShouldIncrementPendingCount() {
+        // Given
+        fleetRegistry.register(testElevator);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(requestRepository.save(any(Request.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        elevatorService.createRequest(3, 7);
+        elevatorService.createRequest(2, 9);
+
+        // Then
+        assertEquals(2, elevatorService.getPendingRequestCount(1L));
+        assertEquals(Collections.singletonMap(1L, 2), elevatorService.getPendingRequestCounts());
+        verify(requestRepository, never()).findByElevatorIdAndCompletedFalse(anyLong());
+    }
+
+    @Test
+    void createRequests_ShouldDispatchEachCallAndSaveInOneBatch() {
+        // Given
+        Elevator upper = new Elevator();
+        upper.setId(2L);
+        upper.setMaxCapacity(10);
+        upper.setCurrentFloor(8);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, upper));
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(elevatorRepository.findById(2L)).thenReturn(Optional.of(upper));
+        when(requestRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Request> saved = new ArrayList<>();
+            invocation.<Iterable<Request>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+
+        // When
+        List<Request> created = elevatorService.createRequests(Arrays.asList(
+                new HallCall(2, 5), new HallCall(9, 3), new HallCall(1, 6)));
+
+        // Then
+        assertEquals(3, created.size());
+        assertEquals(1L, created.get(0).getElevator().getId());
+        assertEquals(2L, created.get(1).getElevator().getId());
+        assertEquals(1L, created.get(2).getElevator().getId());
+        assertEquals(2, fleetRegistry.getPendingCount(1L));
+        assertEquals(1, fleetRegistry.getPendingCount(2L));
+        assertTrue(fleetRegistry.find(1L).get().hasStop(2));
+        // 每部被选中的电梯只加载一次，不锁定也不加载整个车队
+        verify(elevatorRepository, times(1)).findById(1L);
+        verify(elevatorRepository, times(1)).findById(2L);
+        verify(elevatorRepository, never()).findAll();
+        verify(requestRepository, times(1)).saveAll(anyIterable());
+        verify(requestRepository, never()).save(any(Request.class));
+        verify(elevatorRepository, times(1)).saveAll(Arrays.asList(testElevator, upper));
+    }
+
+    @Test
+    void findOptimalElevator_ShouldOnlyConsiderElevatorsInRequestBank() {
+        // Given - tower-b 的电梯离呼叫楼层更近，但不属于默认组
+        Elevator tower = new Elevator();
+        tower.setId(2L);
+        tower.setBank("tower-b");
+        tower.setMaxCapacity(10);
+        tower.setCurrentFloor(3);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, tower));
+        Request request = new Request();
+        request.setOriginFloor(3);
+        request.setDestinationFloor(7);
+        request.setDirection(Direction.UP);
+
+        // When
+        ElevatorSnapshot lobby = elevatorService.findOptimalElevator(request);
+        request.setBank("tower-b");
+        ElevatorSnapshot towerResult = elevatorService.findOptimalElevator(request);
+
+        // Then
+        assertEquals(1L, lobby.getId());
+        assertEquals(2L, towerResult.getId());
+    }
+
+    @Test
+    void createRequest_ShouldValidateFloorsAgainstBankRange() {
+        // Given
+        Elevator tower = new Elevator();
+        tower.setId(2L);
+        tower.setBank("tower-b");
+        tower.setMaxCapacity(10);
+        fleetRegistry.register(tower);
+        when(elevatorRepository.findById(2L)).thenReturn(Optional.of(tower));
+        when(requestRepository.save(any(Request.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Request request = elevatorService.createRequest(25, 2, "tower-b");
+
+        // Then - 25层只在 tower-b 的楼层范围内；未配置的组直接拒绝
+        assertEquals("tower-b", request.getBank());
+        assertEquals(2L, request.getElevator().getId());
+        assertThrows(IllegalArgumentException.class, () -> elevatorService.createRequest(25, 2));
+        assertThrows(IllegalArgumentException.class, () -> elevatorService.createRequest(3, 7, "unknown"));
+    }
+
+    @Test
+    void createRequest_ShouldRetryWithFreshElevatorAfterVersionConflict() {
+        // Given - 第一次写回时另一个副本已经修改了该电梯
+        fleetRegistry.register(testElevator);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(elevatorRepository.save(any(Elevator.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Elevator.class, 1L))
+                .thenReturn(testElevator);
+        when(requestRepository.save(any(Request.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Request result = elevatorService.createRequest(3, 7);
+
+        // Then - 先从数据库同步冲突的电梯，再重新调度、执行整个写入，请求只保存一次
+        assertEquals(1L, result.getElevator().getId());
+        verify(elevatorRepository, times(3)).findById(1L);
+        verify(requestRepository, times(1)).findByElevatorIdAndCompletedFalse(1L);
+        verify(requestRepository, times(1)).save(any(Request.class));
+        assertEquals(1, fleetRegistry.getPendingCount(1L));
+    }
+
+    @Test
+    void createRequest_ShouldRedispatchWhenSelectedElevatorTurnedFull() {
+        // Given - 状态表中1号电梯最近且未满载，数据库中它已被其他副本装满
+        Elevator farther = new Elevator();
+        farther.setId(2L);
+        farther.setMaxCapacity(10);
+        farther.setCurrentFloor(8);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, farther));
+        Elevator full = new Elevator();
+        full.setId(1L);
+        full.setMaxCapacity(10);
+        full.setCurrentLoad(10);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(full));
+        when(elevatorRepository.findById(2L)).thenReturn(Optional.of(farther));
+        when(requestRepository.save(any(Request.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Request result = elevatorService.createRequest(3, 7);
+
+        // Then - 同步后1号电梯已满载，重新调度到2号电梯
+        assertEquals(2L, result.getElevator().getId());
+        assertTrue(fleetRegistry.find(1L).get().isFull());
+        assertEquals(0, fleetRegistry.getPendingCount(1L));
+        assertEquals(1, fleetRegistry.getPendingCount(2L));
+    }
+
+    @Test
+    void advance_ShouldRefreshElevatorChangedByAnotherReplicaBeforeStepping() {
+        // Given - 其他副本给1号电梯分配了请求，数据库中的版本已经前进
+        fleetRegistry.register(testElevator);
+        Elevator changed = new Elevator();
+        changed.setId(1L);
+        changed.setMaxCapacity(10);
+        changed.setRevision(1);
+        changed.getStops().addFloor(6);
+        Request foreign = new Request();
+        foreign.setId(2L);
+        foreign.setOriginFloor(6);
+        foreign.setDestinationFloor(9);
+        foreign.setDirection(Direction.UP);
+        foreign.setElevator(changed);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(changed));
+        when(requestRepository.findByElevatorIdAndCompletedFalse(1L)).thenReturn(Collections.singletonList(foreign));
+
+        // When
+        StepReport report = elevatorService.advance(1L, 1);
+
+        // Then - 推进前同步了快照、请求索引和计数，电梯朝其他副本分配的楼层出发
+        assertEquals(1, fleetRegistry.find(1L).get().getRevision());
+        assertEquals(Collections.singletonList(2L), openRequestIndex.requestIdsAt(1L, 6));
+        assertEquals(1, fleetRegistry.getPendingCount(1L));
+        assertEquals(1, report.getPendingRequests());
+        assertEquals(Direction.UP, report.getDirection());
+        verify(elevatorRepository, times(1)).save(changed);
+    }
+
+    @Test
+    void createRequest_ShouldCoalesceOntoElevatorAlreadyServingHallCall() {
+        // Given - 2号电梯更近，但5楼向上的呼叫已由1号电梯响应
+        Elevator nearer = new Elevator();
+        nearer.setId(2L);
+        nearer.setMaxCapacity(10);
+        nearer.setCurrentFloor(5);
+        testElevator.getStops().add(5);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, nearer));
+        testRequest.setOriginFloor(5);
+        testRequest.setElevator(testElevator);
+        openRequestIndex.register(testRequest);
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(requestRepository.save(any(Request.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Request result = elevatorService.createRequest(5, 9);
+
+        // Then - 并入1号电梯，停靠点已存在，不重新调度也不写回电梯
+        assertEquals(1L, result.getElevator().getId());
+        verify(dispatchStrategy, never()).cost(any(), anyInt(), any(), anyInt());
+        verify(elevatorRepository, never()).save(any(Elevator.class));
+        assertEquals(1, fleetRegistry.getPendingCount(1L));
+    }
+
+    @Test
+    void createRequestsJointly_ShouldAvoidPilingCallsOntoNearestCar() {
+        // Given - 1楼和10楼各一部空闲电梯；逐个调度时两个呼叫都会分给1楼的电梯
+        Elevator upper = new Elevator();
+        upper.setId(2L);
+        upper.setMaxCapacity(10);
+        upper.setCurrentFloor(10);
+        fleetRegistry.registerAll(Arrays.asList(testElevator, upper));
+        when(elevatorRepository.findById(1L)).thenReturn(Optional.of(testElevator));
+        when(elevatorRepository.findById(2L)).thenReturn(Optional.of(upper));
+        when(requestRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Request> saved = new ArrayList<>();
+            invocation.<Iterable<Request>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+
+        // When
+        List<Request> created = elevatorService.createRequestsJointly(Arrays.asList(
+                new HallCall(5, 8), new HallCall(2, 6)));
+
+        // Then
+        assertEquals(2L, created.get(0).getElevator().getId());
+        assertEquals(1L, created.get(1).getElevator().getId());
+        assertTrue(upper.getStops().contains(5));
+        assertTrue(testElevator.getStops().contains(2));
+        assertEquals(1, fleetRegistry.getPendingCount(1L));
+        assertEquals(1, fleetRegistry.getPendingCount(2L));
+        verify(requestRepository, times(1)).saveAll(anyIterable());
+    }
+
+    @Test
+    void getPendingRequestCount_ShouldThrowExceptionWhenElevatorNotExists() {
+        assertThrows(RuntimeException.class, () -> elevatorService.getPendingRequestCount(999L));
+    }
+
+    @Test
+    void createRequest_ShouldRejectFloorsOutsideBuilding() {
+        // Given
+        fleetRegistry.register(testElevator);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> elevatorService.createRequest(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> elevatorService.createRequest(3, 11));
+        verify(requestRepository, never()).save(any(Request.class));
+    }
+
+    private static BuildingTopology withTowerBank() {
+        BuildingTopology building = new BuildingTopology();
+        BuildingTopology.Bank bank = new BuildingTopology.Bank();
+        bank.setName("tower-b");
+        bank.setFloors(30);
+        building.getBanks().add(bank);
+        return building;
+    }
+
+    private static OptimisticRetryProperties noBackoff() {
+        OptimisticRetryProperties properties = new OptimisticRetryProperties();
+        properties.setBackoffMillis(0);
+        return properties;
+    }
+
+    private static MailboxProperties inlineMailboxes() {
+        MailboxProperties properties = new MailboxProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
+}
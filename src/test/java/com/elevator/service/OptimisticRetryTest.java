@@ -0,0 +1,108 @@
+package com.elevator.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private static final Consumer<OptimisticLockingFailureException> IGNORE_CONFLICT = conflict -> {
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        OptimisticRetryProperties properties = new OptimisticRetryProperties();
+        properties.setMaxAttempts(3);
+        properties.setBackoffMillis(1);
+        meterRegistry = new SimpleMeterRegistry();
+        retry = new OptimisticRetry(properties, meterRegistry);
+    }
+
+    @Test
+    void execute_ShouldRetryConflictsUntilAttemptSucceeds() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = retry.execute("advance", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Elevator", 1L);
+            }
+            return "done";
+        }, IGNORE_CONFLICT);
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(3.0, counter("elevator.optimistic.attempts"));
+        assertEquals(2.0, counter("elevator.optimistic.conflicts"));
+        assertEquals(0.0, counter("elevator.optimistic.exhausted"));
+    }
+
+    @Test
+    void execute_ShouldRethrowAfterLastAttempt() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> retry.execute("advance", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Elevator", 1L);
+        }, IGNORE_CONFLICT));
+        assertEquals(3, calls.get());
+        assertEquals(3.0, counter("elevator.optimistic.conflicts"));
+        assertEquals(1.0, counter("elevator.optimistic.exhausted"));
+    }
+
+    @Test
+    void execute_ShouldPassEachConflictToHookBeforeRetrying() {
+        // Given
+        List<Object> resolved = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = retry.execute("advance", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("Elevator", 7L);
+            }
+            // 重试时已经同步过冲突的电梯
+            assertEquals(1, resolved.size());
+            return "done";
+        }, conflict -> resolved.add(((ObjectOptimisticLockingFailureException) conflict).getIdentifier()));
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(Collections.singletonList(7L), resolved);
+    }
+
+    @Test
+    void execute_ShouldNotRetryOtherFailures() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> retry.execute("advance", () -> {
+            calls.incrementAndGet();
+            throw new RuntimeException("Elevator not found");
+        }, IGNORE_CONFLICT));
+        assertEquals(1, calls.get());
+        assertEquals(0.0, counter("elevator.optimistic.conflicts"));
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("operation", "advance").counter().count();
+    }
+}
@@ -0,0 +1,143 @@
+package com.elevator.service;
+
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.model.Direction;
+import com.elevator.model.State;
+import com.elevator.model.StopSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepEngineTest {
+
+    private final StepEngine engine = new StepEngine();
+
+    private Elevator elevator;
+
+    @BeforeEach
+    void setUp() {
+        elevator = new Elevator();
+        elevator.setId(1L);
+        elevator.setMaxCapacity(10);
+        elevator.setCurrentFloor(1);
+        elevator.setDirection(Direction.IDLE);
+        elevator.setState(State.IDLE);
+    }
+
+    @Test
+    void advance_ShouldMoveOneStopPerTick() {
+        // Given
+        List<Request> open = new ArrayList<>();
+        open.add(request(5, 8));
+        elevator.getStops().addFloor(5);
+
+        // When
+        StepEngine.StepResult result = engine.advance(elevator, floorRequests(open), 1);
+
+        // Then
+        assertEquals(1, result.getTicks());
+        assertEquals(5, elevator.getCurrentFloor());
+        assertEquals(State.MOVING, elevator.getState());
+        assertEquals(Direction.UP, elevator.getDirection());
+        assertEquals(0, result.getCompleted());
+    }
+
+    @Test
+    void advance_ShouldCompleteRideAndStopEarlyWhenIdle() {
+        // Given
+        List<Request> open = new ArrayList<>();
+        Request request = request(5, 8);
+        open.add(request);
+        elevator.getStops().addFloor(5);
+
+        // When
+        StepEngine.StepResult result = engine.advance(elevator, floorRequests(open), 100);
+
+        // Then
+        // 移动到5层；开门接客后同一步继续驶向8层；开门送客；变为空闲
+        assertEquals(4, result.getTicks());
+        assertEquals(1, result.getCompleted());
+        assertTrue(request.isCompleted());
+        assertNotNull(request.getCompletedAt());
+        assertTrue(open.stream().allMatch(Request::isCompleted));
+        assertTrue(elevator.getStops().isEmpty());
+        assertEquals(8, elevator.getCurrentFloor());
+        assertEquals(State.IDLE, elevator.getState());
+        assertEquals(0, elevator.getCurrentLoad());
+        assertEquals(1, result.getChangedRequests().size());
+    }
+
+    @Test
+    void advance_ShouldReportZeroTicksWhenAlreadyIdle() {
+        // When
+        StepEngine.StepResult result = engine.advance(elevator, floorRequests(new ArrayList<>()), 10);
+
+        // Then
+        assertEquals(0, result.getTicks());
+        assertTrue(result.getChangedRequests().isEmpty());
+    }
+
+    @Test
+    void advance_ShouldCompleteSameFloorRequestImmediately() {
+        // Given
+        List<Request> open = new ArrayList<>();
+        Request request = request(1, 1);
+        open.add(request);
+        elevator.getStops().addFloor(1);
+
+        // When
+        StepEngine.StepResult result = engine.advance(elevator, floorRequests(open), 1);
+
+        // Then
+        assertEquals(1, result.getCompleted());
+        assertTrue(request.isCompleted());
+        assertEquals(State.DOOR_OPEN, elevator.getState());
+    }
+
+    @Test
+    void findNextStop_ShouldFollowLookOrder() {
+        // Given
+        StopSet stops = new StopSet();
+        stops.addFloor(2);
+        stops.addFloor(7);
+
+        // When & Then
+        assertEquals(7, StepEngine.findNextStop(5, Direction.UP, stops));
+        assertEquals(2, StepEngine.findNextStop(5, Direction.DOWN, stops));
+        assertEquals(7, StepEngine.findNextStop(8, Direction.UP, stops));
+        assertEquals(StopSet.NONE, StepEngine.findNextStop(5, Direction.UP, new StopSet()));
+    }
+
+    // 按楼层过滤请求列表，模拟索引按需取出该楼层的请求
+    private static FloorRequests floorRequests(List<Request> open) {
+        return new FloorRequests() {
+            @Override
+            public boolean isEmpty() {
+                return open.stream().allMatch(Request::isCompleted);
+            }
+
+            @Override
+            public Collection<Request> at(int floor) {
+                return open.stream()
+                        .filter(r -> r.getOriginFloor() == floor || r.getDestinationFloor() == floor)
+                        .collect(Collectors.toList());
+            }
+        };
+    }
+
+    private Request request(int origin, int destination) {
+        Request request = new Request();
+        request.setOriginFloor(origin);
+        request.setDestinationFloor(destination);
+        request.setDirection(destination >= origin ? Direction.UP : Direction.DOWN);
+        request.setElevator(elevator);
+        return request;
+    }
+}
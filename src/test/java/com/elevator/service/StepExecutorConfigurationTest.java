@@ -0,0 +1,25 @@
+package com.elevator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepExecutorConfigurationTest {
+
+    @Test
+    void stepExecutor_ShouldTerminateWhenContextCloses() throws Exception {
+        // Given
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(StepExecutorConfiguration.class);
+        ExecutorService executor = context.getBean("stepExecutor", ExecutorService.class);
+        assertTrue(executor.submit(() -> true).get());
+
+        // When
+        context.close();
+
+        // Then
+        assertTrue(executor.isTerminated());
+    }
+}
@@ -0,0 +1,65 @@
+package com.elevator.simulation;
+
+import com.elevator.repository.SimulationLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ClockLeaseTest {
+
+    private static final String NAME = "lease-test";
+
+    @Autowired
+    private SimulationLeaseRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void tryAcquire_ShouldGrantLeaseToOneReplicaUntilReleased() {
+        // Given - 两个副本共用同一数据库
+        ClockLease first = lease(60_000);
+        ClockLease second = lease(60_000);
+
+        // When & Then
+        assertTrue(first.tryAcquire(NAME));
+        assertFalse(second.tryAcquire(NAME));
+        assertTrue(first.tryAcquire(NAME), "holder renews its own lease");
+
+        first.release(NAME);
+        assertTrue(second.tryAcquire(NAME));
+        assertFalse(first.tryAcquire(NAME));
+        assertEquals(second.getOwner(), repository.findById(NAME).get().getOwner());
+    }
+
+    @Test
+    void tryAcquire_ShouldTakeOverExpiredLease() throws Exception {
+        // Given - 持有方停止续约
+        ClockLease stalled = lease(1);
+        ClockLease standby = lease(60_000);
+        assertTrue(stalled.tryAcquire(NAME));
+        Thread.sleep(5);
+
+        // When & Then
+        assertTrue(standby.tryAcquire(NAME));
+        assertFalse(stalled.tryAcquire(NAME));
+    }
+
+    private ClockLease lease(long leaseMillis) {
+        SimulationProperties properties = new SimulationProperties();
+        properties.setLeaseMillis(leaseMillis);
+        return new ClockLease(repository, transactionTemplate, properties);
+    }
+}
@@ -0,0 +1,190 @@
+package com.elevator.simulation;
+
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.entity.Elevator;
+import com.elevator.service.ElevatorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SimulationClockTest {
+
+    @Mock
+    private ElevatorService elevatorService;
+
+    @Mock
+    private ClockLease lease;
+
+    @Mock
+    private ElevatorBanks banks;
+
+    private static final String BANK = Elevator.DEFAULT_BANK;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SimulationClock clock;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        SimulationProperties properties = new SimulationProperties();
+        properties.setTickMillis(20);
+        lenient().when(lease.tryAcquire(anyString())).thenReturn(true);
+        when(banks.names()).thenReturn(Collections.singleton(BANK));
+        clock = new SimulationClock(elevatorService, lease, banks, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clock.shutdown();
+    }
+
+    @Test
+    void tick_ShouldAdvanceFleetByOneStep() {
+        // Given
+        when(elevatorService.advanceBank(BANK, 1)).thenReturn(Collections.emptyList());
+
+        // When
+        clock.tick(BANK);
+
+        // Then
+        verify(elevatorService).advanceBank(BANK, 1);
+        assertEquals(1, clock.status().getTicks());
+        assertEquals(0, clock.status().getOverruns());
+        assertEquals(1, meterRegistry.get("elevator.simulation.tick").timer().count());
+    }
+
+    @Test
+    void tick_ShouldCountOverrunWhenSlowerThanPeriod() {
+        // Given
+        when(elevatorService.advanceBank(BANK, 1)).thenAnswer(invocation -> {
+            Thread.sleep(40);
+            return Collections.emptyList();
+        });
+
+        // When
+        clock.tick(BANK);
+
+        // Then
+        assertEquals(1, clock.status().getOverruns());
+        assertEquals(1.0, meterRegistry.get("elevator.simulation.tick.overruns").counter().count());
+    }
+
+    @Test
+    void tick_ShouldSurviveFailures() {
+        // Given
+        when(elevatorService.advanceBank(BANK, 1)).thenThrow(new RuntimeException("boom"));
+
+        // When & Then
+        assertDoesNotThrow(() -> clock.tick(BANK));
+        assertEquals(1, clock.status().getTicks());
+    }
+
+    @Test
+    void tick_ShouldStandByWithoutLease() {
+        // Given - 其他副本持有时钟租约
+        when(lease.tryAcquire(SimulationClock.leaseName(BANK))).thenReturn(false);
+
+        // When
+        clock.tick(BANK);
+
+        // Then
+        verify(elevatorService, never()).advanceBank(anyString(), anyInt());
+        assertFalse(clock.status().isLeader());
+        assertEquals(0, clock.status().getTicks());
+        assertEquals(0.0, meterRegistry.get("elevator.simulation.leader").gauge().value());
+    }
+
+    @Test
+    void resume_ShouldDropTicksMissedByOverrunInsteadOfCatchingUp() {
+        // Given - 第一个 tick 占用了约三个周期
+        AtomicInteger calls = new AtomicInteger();
+        when(elevatorService.advanceBank(BANK, 1)).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                Thread.sleep(70);
+            }
+            return Collections.emptyList();
+        });
+
+        // When
+        clock.resume();
+        verify(elevatorService, timeout(1000).atLeast(2)).advanceBank(BANK, 1);
+        clock.pause();
+
+        // Then
+        assertTrue(clock.status().getSkipped() >= 2);
+        assertTrue(meterRegistry.get("elevator.simulation.tick.skipped").counter().count() >= 2);
+    }
+
+    @Test
+    void pauseAndResume_ShouldControlScheduledTicks() {
+        // Given
+        when(elevatorService.advanceBank(BANK, 1)).thenReturn(Collections.emptyList());
+
+        // When
+        assertTrue(clock.resume().isRunning());
+        verify(elevatorService, timeout(1000).atLeast(2)).advanceBank(BANK, 1);
+        SimulationStatus paused = clock.pause();
+
+        // Then
+        assertFalse(paused.isRunning());
+        assertFalse(clock.isRunning());
+        verify(lease).release(SimulationClock.leaseName(BANK));
+        assertEquals(0.0, meterRegistry.get("elevator.simulation.running").gauge().value());
+    }
+
+    @Test
+    void tick_ShouldOnlyAdvanceBanksWhoseLeaseThisReplicaHolds() {
+        // Given - 两个电梯组，另一个副本持有高区组的租约
+        when(banks.names()).thenReturn(new LinkedHashSet<>(Arrays.asList(BANK, "high")));
+        clock = new SimulationClock(elevatorService, lease, banks, new SimulationProperties(), new SimpleMeterRegistry());
+        when(lease.tryAcquire(SimulationClock.leaseName("high"))).thenReturn(false);
+
+        // When
+        clock.tick(BANK);
+        clock.tick("high");
+
+        // Then
+        verify(elevatorService).advanceBank(BANK, 1);
+        verify(elevatorService, never()).advanceBank(eq("high"), anyInt());
+        assertEquals(Collections.singleton(BANK), clock.status().getLeaderBanks());
+        assertEquals(1, clock.status().getTicks());
+    }
+
+    @Test
+    void resume_ShouldKeepOtherBanksTickingWhileOneBankOverruns() throws InterruptedException {
+        // Given - 高区组的 tick 一直卡住
+        when(banks.names()).thenReturn(new LinkedHashSet<>(Arrays.asList(BANK, "high")));
+        SimulationProperties properties = new SimulationProperties();
+        properties.setTickMillis(20);
+        clock = new SimulationClock(elevatorService, lease, banks, properties, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        when(elevatorService.advanceBank("high", 1)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+        when(elevatorService.advanceBank(BANK, 1)).thenReturn(Collections.emptyList());
+
+        // When
+        clock.resume();
+
+        // Then - 默认组仍按节拍推进
+        verify(elevatorService, timeout(1000).atLeast(3)).advanceBank(BANK, 1);
+        release.countDown();
+        clock.pause();
+    }
+}
@@ -0,0 +1,138 @@
+package com.elevator.submission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+    @Test
+    void constructor_ShouldRoundCapacityUpToPowerOfTwo() {
+        // When
+        MpscRingBuffer<Cell> ring = new MpscRingBuffer<>(5, Cell::new);
+
+        // Then
+        assertEquals(8, ring.capacity());
+        assertTrue(ring.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(0, Cell::new));
+    }
+
+    @Test
+    void tryClaim_ShouldFailWhenFullAndSucceedAfterDrain() {
+        // Given
+        MpscRingBuffer<Cell> ring = new MpscRingBuffer<>(2, Cell::new);
+        offer(ring, 0, 1);
+        offer(ring, 0, 2);
+
+        // When & Then
+        assertEquals(-1, ring.tryClaim());
+        assertEquals(2, ring.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, ring.drain(1, cell -> drained.add(cell.value)));
+        assertEquals(1, ring.size());
+        offer(ring, 0, 3);
+        ring.drain(10, cell -> drained.add(cell.value));
+        assertEquals(3, drained.size());
+        assertEquals(Integer.valueOf(1), drained.get(0));
+        assertEquals(Integer.valueOf(3), drained.get(2));
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void drain_ShouldStopAtUnpublishedSlot() {
+        // Given - 第一个序号已申请但未发布，后面已发布的也不能越过它
+        MpscRingBuffer<Cell> ring = new MpscRingBuffer<>(4, Cell::new);
+        long pending = ring.tryClaim();
+        offer(ring, 0, 2);
+
+        // When
+        int first = ring.drain(10, cell -> { });
+        ring.slot(pending).value = 1;
+        ring.publish(pending);
+        List<Integer> drained = new ArrayList<>();
+        int second = ring.drain(10, cell -> drained.add(cell.value));
+
+        // Then
+        assertEquals(0, first);
+        assertEquals(2, second);
+        assertEquals(Integer.valueOf(1), drained.get(0));
+        assertEquals(Integer.valueOf(2), drained.get(1));
+    }
+
+    @Test
+    void drain_ShouldDeliverEveryPublishedValueOnceInProducerOrder() throws Exception {
+        // Given
+        int producers = 4;
+        int perProducer = 5000;
+        MpscRingBuffer<Cell> ring = new MpscRingBuffer<>(64, Cell::new);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long sequence;
+                    while ((sequence = ring.tryClaim()) < 0) {
+                        Thread.yield();
+                    }
+                    Cell cell = ring.slot(sequence);
+                    cell.producer = producer;
+                    cell.value = i;
+                    ring.publish(sequence);
+                }
+            });
+        }
+        start.countDown();
+        Map<Integer, Integer> lastSeen = new HashMap<>();
+        int[] received = new int[1];
+        boolean[] ordered = {true};
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received[0] < producers * perProducer && System.nanoTime() < deadline) {
+            ring.drain(32, cell -> {
+                Integer previous = lastSeen.put(cell.producer, cell.value);
+                if (cell.value != (previous == null ? 0 : previous + 1)) {
+                    ordered[0] = false;
+                }
+                received[0]++;
+            });
+        }
+        executor.shutdownNow();
+
+        // Then
+        assertEquals(producers * perProducer, received[0]);
+        assertTrue(ordered[0]);
+        assertTrue(ring.isEmpty());
+    }
+
+    private static void offer(MpscRingBuffer<Cell> ring, int producer, int value) {
+        long sequence = ring.tryClaim();
+        assertTrue(sequence >= 0);
+        Cell cell = ring.slot(sequence);
+        cell.producer = producer;
+        cell.value = value;
+        ring.publish(sequence);
+    }
+
+    private static final class Cell {
+        private int producer;
+        private int value;
+    }
+}
@@ -0,0 +1,145 @@
+package com.elevator.submission;
+
+import com.elevator.dispatch.BuildingTopology;
+import com.elevator.dispatch.ElevatorBanks;
+import com.elevator.dispatch.NearestCarStrategy;
+import com.elevator.entity.Elevator;
+import com.elevator.entity.Request;
+import com.elevator.model.HallCall;
+import com.elevator.model.RequestTicket;
+import com.elevator.model.TicketStatus;
+import com.elevator.service.ElevatorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RequestSubmissionQueueTest {
+
+    @Mock
+    private ElevatorService elevatorService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BuildingTopology building;
+    private RequestSubmissionQueue submissionQueue;
+
+    @BeforeEach
+    void setUp() {
+        building = new BuildingTopology();
+        building.setFloors(10);
+        building.setLowestFloor(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (submissionQueue != null) {
+            submissionQueue.shutdown();
+        }
+    }
+
+    @Test
+    void submit_ShouldReturnQueuedTicketAndAssignInBackground() throws Exception {
+        // Given
+        submissionQueue = create(10);
+        when(elevatorService.createRequests(anyList())).thenAnswer(invocation -> toRequests(invocation.getArgument(0)));
+
+        // When
+        RequestTicket queued = submissionQueue.submit(new HallCall(3, 7));
+        RequestTicket assigned = submissionQueue.completion(queued.getTicketId()).get().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(TicketStatus.QUEUED, queued.getStatus());
+        assertNull(queued.getElevatorId());
+        assertEquals(TicketStatus.ASSIGNED, assigned.getStatus());
+        assertEquals(1L, assigned.getElevatorId());
+        assertEquals(assigned, submissionQueue.find(queued.getTicketId()).get());
+        assertEquals(1, meterRegistry.get("elevator.submission.queued").timer().count());
+    }
+
+    @Test
+    void submit_ShouldMarkTicketFailedWhenDispatchFails() throws Exception {
+        // Given
+        submissionQueue = create(10);
+        when(elevatorService.createRequests(anyList())).thenThrow(new RuntimeException("No elevators available"));
+
+        // When
+        RequestTicket queued = submissionQueue.submit(new HallCall(3, 7));
+        RequestTicket failed = submissionQueue.completion(queued.getTicketId()).get().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(TicketStatus.FAILED, failed.getStatus());
+        assertEquals("No elevators available", failed.getError());
+    }
+
+    @Test
+    void submit_ShouldRejectWhenQueueIsFull() throws Exception {
+        // Given - 调度线程卡在第一批上，后续呼叫只能排队
+        submissionQueue = create(1);
+        CountDownLatch dispatching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(elevatorService.createRequests(anyList())).thenAnswer(invocation -> {
+            dispatching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return toRequests(invocation.getArgument(0));
+        });
+        submissionQueue.submit(new HallCall(2, 5));
+        assertTrue(dispatching.await(5, TimeUnit.SECONDS));
+        RequestTicket queued = submissionQueue.submit(new HallCall(3, 5));
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> submissionQueue.submit(new HallCall(4, 5)));
+        assertEquals(1.0, meterRegistry.get("elevator.submission.rejected").counter().count());
+        release.countDown();
+        assertEquals(TicketStatus.ASSIGNED,
+                submissionQueue.completion(queued.getTicketId()).get().get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void submit_ShouldRejectInvalidFloorWithoutQueueing() {
+        // Given
+        submissionQueue = create(10);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> submissionQueue.submit(new HallCall(0, 7)));
+        assertEquals(0, submissionQueue.queueSize());
+        verifyNoInteractions(elevatorService);
+    }
+
+    private RequestSubmissionQueue create(int capacity) {
+        SubmissionProperties properties = new SubmissionProperties();
+        properties.setQueueCapacity(capacity);
+        properties.setBatchSize(10);
+        return new RequestSubmissionQueue(elevatorService, new ElevatorBanks(building, new NearestCarStrategy(building)),
+                properties, meterRegistry);
+    }
+
+    private static List<Request> toRequests(List<HallCall> calls) {
+        Elevator elevator = new Elevator();
+        elevator.setId(1L);
+        List<Request> requests = new ArrayList<>();
+        for (HallCall call : calls) {
+            Request request = new Request();
+            request.setId((long) requests.size() + 1);
+            request.setOriginFloor(call.getOriginFloor());
+            request.setDestinationFloor(call.getDestinationFloor());
+            request.setElevator(elevator);
+            requests.add(request);
+        }
+        return requests;
+    }
+}